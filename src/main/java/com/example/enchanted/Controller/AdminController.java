@@ -3,6 +3,8 @@ package com.example.enchanted.Controller;
 import com.example.enchanted.Pojo.*;
 import com.example.enchanted.Service.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -10,7 +12,10 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 public class AdminController {
@@ -65,15 +70,39 @@ public class AdminController {
     }
 
     /**
-     * Finding Customers that are registered in the database
+     * Finding products that are running low on stock
      *
-     * @return List of Customers
+     * @param category optional category to look at
+     * @return Products whose available quantity is above 0 and at or below the low stock threshold of their category
+     */
+    @GetMapping("/lowStock")
+    public ResponseEntity<List<Product>> lowStockProducts(@RequestParam(required = false) Category category) {
+        List<Product> products = adminService.lowStockProducts(category);
+        return new ResponseEntity<>(products, HttpStatus.OK);
+    }
+
+    /**
+     * Finding Customers that are registered in the database, one page of summaries at a time
+     *
+     * @param name optional name prefix
+     * @param email optional email prefix
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of customers in the page
+     * @return List of Customer summaries
      */
 
     @GetMapping("/customers")
-    public ResponseEntity<List<Customer>> findAllCustomers() {
-        List<Customer> customers = adminService.findAllCustomers();
-        return new ResponseEntity<>(customers, HttpStatus.OK);
+    public ResponseEntity<List<CustomerSummary>> findCustomers(@RequestParam(required = false) String name,
+                                                               @RequestParam(required = false) String email,
+                                                               @RequestParam(required = false) String after,
+                                                               @RequestParam(defaultValue = CustomerController.DEFAULT_PAGE_SIZE) int limit) {
+        Slice<CustomerSummary> slice = adminService.findCustomers(name, email, CustomerCursor.decode(after), limit);
+        HttpHeaders headers = new HttpHeaders();
+        List<CustomerSummary> customers = slice.getContent();
+        if (slice.hasNext() && !customers.isEmpty()) {
+            headers.set(CustomerController.NEXT_CURSOR_HEADER, CustomerCursor.encode(customers.get(customers.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(customers, headers, HttpStatus.OK);
     }
 
     /**
@@ -102,6 +131,96 @@ public class AdminController {
         return new ResponseEntity<>(customer, HttpStatus.OK);
     }
 
+    /**
+     * Hit, miss and eviction counters of the Product second-level cache, used to size it
+     *
+     * @return Product cache statistics
+     */
+
+    @GetMapping("/admin/cache/stats")
+    public ResponseEntity<ProductCacheStatistics> productCacheStatistics() {
+        return new ResponseEntity<>(adminService.productCacheStatistics(), HttpStatus.OK);
+    }
+
+    /**
+     * Switching a product to hot inventory mode for a flash sale, so orders take its stock from memory
+     *
+     * @param id
+     */
+
+    @PutMapping("/admin/hotInventory/{id}")
+    public ResponseEntity<Void> enableHotInventory(@PathVariable Integer id) {
+        adminService.enableHotInventory(id);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Returning a product to database stock after its outstanding changes are written back
+     *
+     * @param id
+     */
+
+    @DeleteMapping("/admin/hotInventory/{id}")
+    public ResponseEntity<Void> disableHotInventory(@PathVariable Integer id) {
+        adminService.disableHotInventory(id);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Finding the products in hot inventory mode
+     *
+     * @return Product IDs
+     */
+
+    @GetMapping("/admin/hotInventory")
+    public ResponseEntity<Set<Integer>> hotInventoryProducts() {
+        return new ResponseEntity<>(adminService.hotInventoryProducts(), HttpStatus.OK);
+    }
+
+    /**
+     * Importing products from a CSV upload whose header names the columns name, category, type, color, price
+     * and availableQuantity. The file is read as a stream and written in batches; invalid lines are reported and skipped.
+     *
+     * @param body CSV file
+     * @return Imported and rejected counts with the rejected lines
+     */
+
+    @PostMapping(value = "/admin/products/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResult> importCsv(InputStream body) throws IOException {
+        return new ResponseEntity<>(adminService.importCsv(body), HttpStatus.OK);
+    }
+
+    /**
+     * Importing products from a newline-delimited JSON upload, one product object per line
+     *
+     * @param body NDJSON file
+     * @return Imported and rejected counts with the rejected lines
+     */
+
+    @PostMapping(value = "/admin/products/import", consumes = {"application/x-ndjson", "application/ndjson"})
+    public ResponseEntity<ProductImportResult> importNdjson(InputStream body) throws IOException {
+        return new ResponseEntity<>(adminService.importNdjson(body), HttpStatus.OK);
+    }
+
+    /**
+     * Applying a warehouse stock feed from the feed directory, setting the available quantity of every product it lists
+     * to its on-hand quantity less the units held in carts
+     *
+     * @param file name of the feed file
+     * @return Updated, unknown, skipped and malformed line counts
+     */
+
+    @PostMapping("/admin/stockFeed")
+    public ResponseEntity<StockFeedResult> applyStockFeed(@RequestParam String file) throws IOException {
+        return new ResponseEntity<>(adminService.applyStockFeed(file), HttpStatus.OK);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ex.getMessage();
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public String handleEntityNotFoundException(EntityNotFoundException ex) {
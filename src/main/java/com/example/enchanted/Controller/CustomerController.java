@@ -2,34 +2,97 @@ package com.example.enchanted.Controller;
 
 import com.example.enchanted.Pojo.*;
 import com.example.enchanted.Service.CustomerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 public class CustomerController {
 
+    /**
+     * Response header carrying the cursor of the next page; it is left out on the last page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String DEFAULT_PAGE_SIZE = "50";
+
     CustomerService customerService;
+    ObjectMapper objectMapper;
 
     @Autowired
-    public CustomerController(CustomerService customerService){
+    public CustomerController(CustomerService customerService, ObjectMapper objectMapper){
         this.customerService = customerService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     *Finding products that are saved on the database
+     *Finding products that are saved on the database, one page at a time
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
      * @return List of products
      */
     @GetMapping("/findProducts")
-    public List<Product> getAll() {
-        return customerService.findAll();
+    public ResponseEntity<List<Product>> getAll(@RequestParam(required = false) String after,
+                                                @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                ServletWebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return page(customerService.findAll(ProductCursor.decode(after), limit));
+    }
+
+    /**
+     * Exporting the whole catalog as newline-delimited JSON, one product per line.
+     * Products are written while they are read from the database, so memory use does not grow with the catalog.
+     * @return stream of all products
+     */
+    @GetMapping(value = "/findProducts/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAll(ServletWebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        ObjectWriter writer = objectMapper.writerFor(Product.class);
+        return out -> {
+            try {
+                customerService.streamAll(product -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(product));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
     }
 
+    /**
+     * Subscribing to product changes as Server-Sent Events. Every admin edit or delete and every committed stock
+     * change is pushed as a {@code change} event; a {@code resync} event asks the client to read the products again.
+     * @param lastEventId sent by the browser when it reconnects
+     * @return open event stream
+     */
+    @GetMapping(value = "/products/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter productChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return customerService.subscribeToProductChanges(lastEventId != null);
+    }
 
     /**
      * Finding a specific Product by its ID
@@ -37,10 +100,13 @@ public class CustomerController {
      * @return Product by the specified ID
      */
     @GetMapping("/productById/{id}")
-    public Product findProductById(@PathVariable Integer id){
+    public Product findProductById(@PathVariable Integer id, ServletWebRequest request){
         if (id <= 0) {
             throw new IllegalArgumentException("Invalid product ID");
         }
+        if (notModified(request)) {
+            return null;
+        }
         return customerService.findProductById(id);
 
     }
@@ -48,60 +114,180 @@ public class CustomerController {
     /**
      * Finding products that belong to the same category
      * @param category
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
      * @return List of products by the specified category
      */
 
     @GetMapping("/productsByCategory/{category}")
-    public List<Product> findProductByCategory(@PathVariable Category category){
-        return customerService.findProductByCategory(category);
+    public ResponseEntity<List<Product>> findProductByCategory(@PathVariable Category category,
+                                                               @RequestParam(required = false) String after,
+                                                               @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                               ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return page(customerService.findProductByCategory(category, ProductCursor.decode(after), limit));
     }
 
     /**
      * Finding products that have the same color
      * @param color
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
      * @return List of products by the specified color
      */
 
     @GetMapping("/productsByColor/{color}")
-    public List<Product> findProductByColor (@PathVariable String color){
-        return customerService.findProductByColor(color);
+    public ResponseEntity<List<Product>> findProductByColor (@PathVariable String color,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                             ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return page(customerService.findProductByColor(color, ProductCursor.decode(after), limit));
     }
 
     /**
      *Finding products that have the same price
      * @param price
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
      * @return List of products by the specified price
      */
     @GetMapping("/productsByPrice/{price}")
-    public List<Product> findProductByPrice (@PathVariable double price){
+    public ResponseEntity<List<Product>> findProductByPrice (@PathVariable double price,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                             ServletWebRequest request){
         if (price <= 0) {
             throw new IllegalArgumentException("Price must be a positive value.");
         }
-        return customerService.findProductByPrice(price);
+        if (notModified(request)) {
+            return null;
+        }
+        return page(customerService.findProductByPrice(price, ProductCursor.decode(after), limit));
 
     }
 
+    /**
+     *Finding products whose price lies in a range, cheapest first
+     * @param min lowest price, inclusive
+     * @param max highest price, inclusive
+     * @param category optional category the products must belong to
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
+     * @return List of products priced between min and max
+     */
+    @GetMapping("/productsByPrice")
+    public ResponseEntity<List<Product>> findProductByPriceRange(@RequestParam(defaultValue = "0") double min,
+                                                                 @RequestParam(defaultValue = "" + Double.MAX_VALUE) double max,
+                                                                 @RequestParam(required = false) Category category,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                                 ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        Slice<Product> slice = customerService.findProductByPriceRange(min, max, category, PriceCursor.decode(after), limit);
+        HttpHeaders headers = new HttpHeaders();
+        List<Product> products = slice.getContent();
+        if (slice.hasNext() && !products.isEmpty()) {
+            Product last = products.get(products.size() - 1);
+            headers.set(NEXT_CURSOR_HEADER, new PriceCursor(last.getPrice(), last.getId()).encode());
+        }
+        return new ResponseEntity<>(products, headers, HttpStatus.OK);
+    }
+
+    /**
+     *Searching products by any combination of categories, colors, types and price bands ("min-max", upper bound exclusive).
+     *Values of the same filter are combined with OR, different filters with AND.
+     * @param input selected filter values, each one can be repeated
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
+     * @return page of matching products with the number of matches for every facet value
+     */
+    @GetMapping("/products/search")
+    public ProductSearchResult search(ProductSearchInput input,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                      ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return customerService.search(input, ProductCursor.decode(after), limit);
+    }
+
+    /**
+     *Full-text search on the name, type and color of products; every word of the query has to match
+     * @param q search text
+     * @param limit maximum number of products returned
+     * @return matching products, most relevant first
+     */
+    @GetMapping("/products/text")
+    public List<Product> searchText(@RequestParam String q,
+                                    @RequestParam(defaultValue = "20") int limit,
+                                    ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return customerService.searchText(q, limit);
+    }
+
+    /**
+     *Typeahead suggestions for product names
+     * @param prefix text typed so far, matched against the start of any word of the name
+     * @param limit maximum number of suggestions, at most 10
+     * @return product names, most common first
+     */
+    @GetMapping("/products/autocomplete")
+    public List<String> autocomplete(@RequestParam String prefix,
+                                     @RequestParam(defaultValue = "10") int limit,
+                                     ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return customerService.autocomplete(prefix, limit);
+    }
+
     /**
      *Finding products that have the same type
      * @param type
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
      * @return List of products with the same type
      */
 
     @GetMapping("/productsByType/{type}")
-    public List<Product> findProductByType (@PathVariable String type){
-        return customerService.findProductByType(type);
+    public ResponseEntity<List<Product>> findProductByType (@PathVariable String type,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                            ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return page(customerService.findProductByType(type, ProductCursor.decode(after), limit));
     }
 
     /**
      *Finding products by the category that they belong and by the color of the product
      * @param category
      * @param color
+     * @param after cursor returned with the previous page, omitted for the first page
+     * @param limit maximum number of products in the page
      * @return List of products that belong to the same category and same color
      */
 
     @GetMapping("/products/{category}/{color}")
-    public List<Product> findProductByCategoryAndColor(@PathVariable Category category, @PathVariable String color){
-        return customerService.findProductByCategoryAndColor(category,color);
+    public ResponseEntity<List<Product>> findProductByCategoryAndColor(@PathVariable Category category, @PathVariable String color,
+                                                                       @RequestParam(required = false) String after,
+                                                                       @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                                       ServletWebRequest request){
+        if (notModified(request)) {
+            return null;
+        }
+        return page(customerService.findProductByCategoryAndColor(category, color, ProductCursor.decode(after), limit));
     }
 
     /**
@@ -165,6 +351,29 @@ public class CustomerController {
         return productOrder;
     }
 
+    /**
+     * Saving several products to a Cart in one request. Every line is validated on its own;
+     * a product already in the cart gets its amount raised
+     * @param cartId
+     * @param input lines with product id and amount
+     * @return result of every line and the new cart total
+     */
+    @PostMapping("/addProductsToCart/{cartId}")
+    public CartLinesResult addProductsToCart(@PathVariable Integer cartId, @RequestBody CartLinesInput input) {
+        return customerService.addProductsToCart(cartId, input.getLines());
+    }
+
+    /**
+     * Replacing the whole content of a Cart, for example when a saved cart is restored or an order is repeated
+     * @param cartId
+     * @param input lines with product id and amount
+     * @return result of every line and the new cart total
+     */
+    @PutMapping("/replaceCart/{cartId}")
+    public CartLinesResult replaceCart(@PathVariable Integer cartId, @RequestBody CartLinesInput input) {
+        return customerService.replaceCart(cartId, input.getLines());
+    }
+
     /**
      * Delete a product from Cart
      * @param cartId
@@ -195,6 +404,36 @@ public class CustomerController {
         return customerService.totalPrice(cartId);
     }
 
+    /**
+     * Turning the products of a Cart into an order and emptying the Cart
+     * @param cartId
+     * @return the order with the price of every product at checkout
+     */
+    @PostMapping("/checkout/{cartId}")
+    public CustomerOrder checkout(@PathVariable Integer cartId) {
+        return customerService.checkout(cartId);
+    }
+
+    /**
+     * Sets the ETag of a catalog read and tells whether the client copy is still current, in which case
+     * the response is a 304 and the handler returns without querying anything. The ETag is taken before
+     * the read, so a write racing with it can only make the tag older than the body, never newer.
+     */
+    private boolean notModified(ServletWebRequest request) {
+        String query = request.getRequest().getQueryString();
+        String resource = request.getRequest().getRequestURI() + (query == null ? "" : "?" + query);
+        return request.checkNotModified("\"" + customerService.catalogVersion() + "-" + Integer.toHexString(resource.hashCode()) + "\"");
+    }
+
+    private ResponseEntity<List<Product>> page(Slice<Product> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        List<Product> products = slice.getContent();
+        if (slice.hasNext() && !products.isEmpty()) {
+            headers.set(NEXT_CURSOR_HEADER, ProductCursor.encode(products.get(products.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(products, headers, HttpStatus.OK);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public String handleRuntimeException(RuntimeException ex) {
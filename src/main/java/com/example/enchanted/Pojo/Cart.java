@@ -8,11 +8,15 @@ import java.util.List;
 @Table(name="cart")
 public class Cart {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_seq")
+    @SequenceGenerator(name = "cart_seq", sequenceName = "cart_seq", allocationSize = 50)
     private Integer id;
-    @OneToMany(mappedBy = "product")
+    @OneToMany(mappedBy = "cart")
     private List<ProductOrder> productOrders;
 
+    /**
+     * Kept up to date by applying the price difference of every cart line change, see {@link #totalPrice()}
+     */
     @Column(name = "totalPrice")
     private double price;
     public Cart() {
@@ -40,23 +44,26 @@ public class Cart {
         this.productOrders = productOrders;
     }
 
+    /**
+     * Recomputes the total from the product orders; reads use the stored {@link #getPrice()} instead
+     */
     public double totalPrice(){
         return productOrders.stream().mapToDouble(order->order.totalPricePerProduct()).reduce(0.0,(acc,order)-> acc+order);
     }
 
     public double getPrice() {
-        return totalPrice();
+        return price;
     }
 
     public void setPrice(double price) {
-        this.price = totalPrice();
+        this.price = price;
     }
 
     @Override
     public String toString() {
         return "Cart{" +
                 "id=" + id +
-                ", productOrders=" + productOrders +
+                ", price=" + price +
                 '}';
     }
 }
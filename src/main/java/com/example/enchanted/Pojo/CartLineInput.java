@@ -0,0 +1,30 @@
+package com.example.enchanted.Pojo;
+
+public class CartLineInput {
+    private Integer productId;
+    private Integer amount;
+
+    public CartLineInput() {
+    }
+
+    public CartLineInput(Integer productId, Integer amount) {
+        this.productId = productId;
+        this.amount = amount;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+}
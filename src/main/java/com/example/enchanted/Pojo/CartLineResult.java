@@ -0,0 +1,46 @@
+package com.example.enchanted.Pojo;
+
+/**
+ * What happened to one line of a bulk cart request
+ */
+public class CartLineResult {
+
+    private final Integer productId;
+    private final Integer amount;
+    private final boolean added;
+    private final String message;
+
+    private CartLineResult(Integer productId, Integer amount, boolean added, String message) {
+        this.productId = productId;
+        this.amount = amount;
+        this.added = added;
+        this.message = message;
+    }
+
+    public static CartLineResult added(Integer productId, Integer amount) {
+        return new CartLineResult(productId, amount, true, null);
+    }
+
+    public static CartLineResult rejected(Integer productId, Integer amount, String message) {
+        return new CartLineResult(productId, amount, false, message);
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public boolean isAdded() {
+        return added;
+    }
+
+    /**
+     * @return why the line was rejected, or null when it was added
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.enchanted.Pojo;
+
+import java.util.List;
+
+public class CartLinesInput {
+    private List<CartLineInput> lines;
+
+    public CartLinesInput() {
+    }
+
+    public CartLinesInput(List<CartLineInput> lines) {
+        this.lines = lines;
+    }
+
+    public List<CartLineInput> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<CartLineInput> lines) {
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.enchanted.Pojo;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk cart request: one result per requested line, in request order, and the cart total afterwards
+ */
+public class CartLinesResult {
+
+    private final List<CartLineResult> lines;
+    private final double totalPrice;
+
+    public CartLinesResult(List<CartLineResult> lines, double totalPrice) {
+        this.lines = lines;
+        this.totalPrice = totalPrice;
+    }
+
+    public List<CartLineResult> getLines() {
+        return lines;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+}
@@ -4,10 +4,14 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "customer")
+@Table(name = "customer", indexes = {
+        @Index(name = "idx_customer_name", columnList = "name"),
+        @Index(name = "idx_customer_email", columnList = "email")
+})
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
     @Column(name="id")
     private Integer id;
     @Column(name="name")
@@ -18,7 +22,7 @@ public class Customer {
     private String address;
     @Column(name="phoneNumber")
     private String phoneNumber;
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cartId", referencedColumnName = "id")
     private Cart cart;
 
@@ -90,7 +94,7 @@ public class Customer {
                 ", email='" + email + '\'' +
                 ", address='" + address + '\'' +
                 ", phoneNumber='" + phoneNumber + '\'' +
-                ", cart=" + cart +
+                ", cartId=" + (cart == null ? null : cart.getId()) +
                 '}';
     }
 }
@@ -0,0 +1,64 @@
+package com.example.enchanted.Pojo;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A checked-out cart. Orders are never updated once written; prices are copied into the lines,
+ * so later price edits do not change what was bought.
+ */
+@Entity
+@Immutable
+@Table(name = "customer_orders")
+public class CustomerOrder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Integer id;
+    @Column(name = "cart_id", nullable = false)
+    private Integer cartId;
+    @Column(name = "total", nullable = false)
+    private double total;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Transient
+    private List<OrderLine> lines = Collections.emptyList();
+
+    protected CustomerOrder() {
+    }
+
+    public CustomerOrder(Integer cartId, double total, Instant createdAt) {
+        this.cartId = cartId;
+        this.total = total;
+        this.createdAt = createdAt;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getCartId() {
+        return cartId;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    public CustomerOrder withLines(List<OrderLine> lines) {
+        this.lines = Collections.unmodifiableList(lines);
+        return this;
+    }
+}
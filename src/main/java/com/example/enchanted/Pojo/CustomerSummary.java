@@ -0,0 +1,35 @@
+package com.example.enchanted.Pojo;
+
+/**
+ * Row of the admin customer listing, read straight from the customer table without loading the entity or its cart
+ */
+public class CustomerSummary {
+
+    private final Integer id;
+    private final String name;
+    private final String email;
+    private final Integer cartId;
+
+    public CustomerSummary(Integer id, String name, String email, Integer cartId) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.cartId = cartId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getCartId() {
+        return cartId;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.enchanted.Pojo;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * One product of a {@link CustomerOrder}, with the name and price it had at checkout
+ */
+@Entity
+@Immutable
+@Table(name = "order_lines", indexes = {
+        @Index(name = "idx_order_lines_order", columnList = "order_id")
+})
+public class OrderLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Integer id;
+    @Column(name = "order_id", nullable = false)
+    private Integer orderId;
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+    @Column(name = "product_name")
+    private String productName;
+    @Column(name = "price", nullable = false)
+    private double price;
+    @Column(name = "amount", nullable = false)
+    private Integer amount;
+
+    protected OrderLine() {
+    }
+
+    public OrderLine(Integer orderId, Integer productId, String productName, double price, Integer amount) {
+        this.orderId = orderId;
+        this.productId = productId;
+        this.productName = productName;
+        this.price = price;
+        this.amount = amount;
+    }
+
+    @JsonIgnore
+    public Integer getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+}
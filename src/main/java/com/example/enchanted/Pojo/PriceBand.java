@@ -0,0 +1,77 @@
+package com.example.enchanted.Pojo;
+
+import java.util.Objects;
+
+/**
+ * Price interval used as a search facet, written as "min-max" (for example "100-250").
+ * The lower bound is inclusive and the upper bound exclusive, so adjacent bands never overlap.
+ * The upper bound may be left out ("1000-") for an open-ended band.
+ */
+public final class PriceBand {
+
+    private final double min;
+    private final double max;
+
+    public PriceBand(double min, double max) {
+        if (min < 0) {
+            throw new IllegalArgumentException("Price cannot be negative.");
+        }
+        if (max <= min) {
+            throw new IllegalArgumentException("Price band upper bound must be greater than its lower bound.");
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    public static PriceBand valueOf(String band) {
+        if (band == null) {
+            throw new IllegalArgumentException("Invalid price band.");
+        }
+        int dash = band.indexOf('-');
+        if (dash <= 0) {
+            throw new IllegalArgumentException("Invalid price band: " + band);
+        }
+        try {
+            double min = Double.parseDouble(band.substring(0, dash).trim());
+            String upper = band.substring(dash + 1).trim();
+            double max = upper.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(upper);
+            return new PriceBand(min, max);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price band: " + band);
+        }
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public boolean contains(double price) {
+        return price >= min && price < max;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PriceBand)) return false;
+        PriceBand that = (PriceBand) o;
+        return Double.compare(that.min, min) == 0 && Double.compare(that.max, max) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(min, max);
+    }
+
+    @Override
+    public String toString() {
+        return format(min) + "-" + (max == Double.POSITIVE_INFINITY ? "" : format(max));
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.enchanted.Pojo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for results ordered by price. Products with the same price are ordered by ID,
+ * so the pair (price, ID) of the last product of a page identifies where the next page starts.
+ */
+public final class PriceCursor {
+
+    private static final String PREFIX = "q:";
+
+    private final double price;
+    private final Integer productId;
+
+    public PriceCursor(double price, Integer productId) {
+        this.price = price;
+        this.productId = productId;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + price + ":" + productId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor cursor received from a client, may be null for the first page
+     * @return the decoded cursor, or null for the first page
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static PriceCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split(":");
+            if (parts.length != 3 || !value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return new PriceCursor(Double.parseDouble(parts[1]), Integer.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -1,13 +1,36 @@
 package com.example.enchanted.Pojo;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 
 @Entity
-@Table(name="product")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
+@Table(name="product", indexes = {
+        @Index(name = "idx_product_price", columnList = "price"),
+        @Index(name = "idx_product_category_price", columnList = "category, price"),
+        @Index(name = "idx_product_category_color", columnList = "category, color"),
+        @Index(name = "idx_product_color", columnList = "color"),
+        @Index(name = "idx_product_type", columnList = "type")
+})
 public class Product {
 
+    /**
+     * Second-level cache region holding Product entities
+     */
+    public static final String CACHE_REGION = "product";
+
+    /**
+     * Drawn from a pooled sequence in blocks of 50, emulated with a table on MySQL, so new products need no
+     * round trip for their ID and Hibernate can batch their inserts
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     @Column(name="id")
     private Integer id;
     @Column(name="name")
@@ -0,0 +1,66 @@
+package com.example.enchanted.Pojo;
+
+/**
+ * Counters of the Product second-level cache since the application started
+ */
+public class ProductCacheStatistics {
+
+    private final long entityHits;
+    private final long entityMisses;
+    private final long entityPuts;
+    private final long entityEvictions;
+    private final long entitiesInMemory;
+    private final long queryHits;
+    private final long queryMisses;
+    private final long queryPuts;
+
+    public ProductCacheStatistics(long entityHits, long entityMisses, long entityPuts, long entityEvictions, long entitiesInMemory,
+                                  long queryHits, long queryMisses, long queryPuts) {
+        this.entityHits = entityHits;
+        this.entityMisses = entityMisses;
+        this.entityPuts = entityPuts;
+        this.entityEvictions = entityEvictions;
+        this.entitiesInMemory = entitiesInMemory;
+        this.queryHits = queryHits;
+        this.queryMisses = queryMisses;
+        this.queryPuts = queryPuts;
+    }
+
+    public long getEntityHits() {
+        return entityHits;
+    }
+
+    public long getEntityMisses() {
+        return entityMisses;
+    }
+
+    public long getEntityPuts() {
+        return entityPuts;
+    }
+
+    /**
+     * @return products evicted after an admin write or a stock change
+     */
+    public long getEntityEvictions() {
+        return entityEvictions;
+    }
+
+    /**
+     * @return products currently held in the cache, or -1 when the cache provider does not report it
+     */
+    public long getEntitiesInMemory() {
+        return entitiesInMemory;
+    }
+
+    public long getQueryHits() {
+        return queryHits;
+    }
+
+    public long getQueryMisses() {
+        return queryMisses;
+    }
+
+    public long getQueryPuts() {
+        return queryPuts;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.enchanted.Pojo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One change of a product as pushed to the product change stream. Only what the change touched is filled in:
+ * an admin edit carries the price and the quantity, an order only the new quantity, a delete only the ID.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChange {
+
+    private final Integer productId;
+    private final Double price;
+    private final Integer availableQuantity;
+    private final Boolean deleted;
+
+    private ProductChange(Integer productId, Double price, Integer availableQuantity, Boolean deleted) {
+        this.productId = productId;
+        this.price = price;
+        this.availableQuantity = availableQuantity;
+        this.deleted = deleted;
+    }
+
+    public static ProductChange saved(Product product) {
+        return new ProductChange(product.getId(), product.getPrice(), product.getAvailableQuantity(), null);
+    }
+
+    public static ProductChange stock(Integer productId, int availableQuantity) {
+        return new ProductChange(productId, null, availableQuantity, null);
+    }
+
+    public static ProductChange deleted(Integer productId) {
+        return new ProductChange(productId, null, null, true);
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public Integer getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public Boolean getDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.enchanted.Pojo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor handed out to clients. It wraps the ID of the last product of a page,
+ * so the next page can be fetched with an indexed "id greater than" lookup instead of an offset.
+ */
+public final class ProductCursor {
+
+    private static final String PREFIX = "p:";
+
+    private ProductCursor() {
+    }
+
+    public static String encode(Integer productId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + productId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor cursor received from a client, may be null for the first page
+     * @return the product ID the cursor points after, or null for the first page
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode(Integer)}
+     */
+    public static Integer decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            return Integer.valueOf(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -7,6 +7,7 @@ public class ProductDto {
     private final String type;
     private final Category category;
     private final String color;
+    private final Integer amount;
 
     public double getPrice() {
         return price;
@@ -28,11 +29,26 @@ public class ProductDto {
         return name;
     }
 
+    /**
+     * @return amount of the product in the cart, null when the product is not a cart line
+     */
+    public Integer getAmount() {
+        return amount;
+    }
+
     public ProductDto(Product p){
-        name=p.getName();
-        price=p.getPrice();
-        type=p.getType();
-        category=p.getCategory();
-        color=p.getColor();
+        this(p.getName(), p.getPrice(), p.getType(), p.getCategory(), p.getColor(), null);
+    }
+
+    /**
+     * Used by the constructor expression of {@link com.example.enchanted.Repository.ProductOrderRepository#findCartLines}
+     */
+    public ProductDto(String name, double price, String type, Category category, String color, Integer amount){
+        this.name=name;
+        this.price=price;
+        this.type=type;
+        this.category=category;
+        this.color=color;
+        this.amount=amount;
     }
 }
@@ -0,0 +1,26 @@
+package com.example.enchanted.Pojo;
+
+/**
+ * A line of an import file that was not written, and why
+ */
+public class ProductImportError {
+
+    private final long line;
+    private final String message;
+
+    public ProductImportError(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    /**
+     * @return line number in the uploaded file, starting at 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.enchanted.Pojo;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import. Every line is either imported or rejected; only the first
+ * rejections are listed, so a file that is wrong throughout does not produce an unbounded response.
+ */
+public class ProductImportResult {
+
+    private final long imported;
+    private final long rejected;
+    private final List<ProductImportError> errors;
+
+    public ProductImportResult(long imported, long rejected, List<ProductImportError> errors) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return the first rejected lines, in file order
+     */
+    public List<ProductImportError> getErrors() {
+        return errors;
+    }
+}
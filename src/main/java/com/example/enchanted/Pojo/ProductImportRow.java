@@ -0,0 +1,75 @@
+package com.example.enchanted.Pojo;
+
+/**
+ * One product as read from an import file, before it is validated. Category and numbers are kept as read,
+ * so that a bad value is reported against its line instead of failing the whole upload.
+ */
+public class ProductImportRow {
+
+    private String name;
+    private String category;
+    private String type;
+    private String color;
+    private String price;
+    private String availableQuantity;
+
+    public ProductImportRow() {
+    }
+
+    public ProductImportRow(String name, String category, String type, String color, String price, String availableQuantity) {
+        this.name = name;
+        this.category = category;
+        this.type = type;
+        this.color = color;
+        this.price = price;
+        this.availableQuantity = availableQuantity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public String getPrice() {
+        return price;
+    }
+
+    public void setPrice(String price) {
+        this.price = price;
+    }
+
+    public String getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public void setAvailableQuantity(String availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+}
@@ -3,22 +3,41 @@ package com.example.enchanted.Pojo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @Entity
-@Table(name="productOrders")
+@NamedEntityGraph(name = ProductOrder.WITH_PRODUCT, attributeNodes = @NamedAttributeNode("product"))
+@Table(name="productOrders", indexes = {
+        @Index(name = "idx_product_orders_product_cart", columnList = "product_id, cart_id"),
+        @Index(name = "idx_product_orders_reserved_at", columnList = "reserved_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_orders_cart_product", columnNames = {"cart_id", "product_id"})
+})
 public class ProductOrder {
+
+    /**
+     * Fetch plan for reads that use the product of the line, joined in the same query
+     */
+    public static final String WITH_PRODUCT = "ProductOrder.product";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_orders_seq")
+    @SequenceGenerator(name = "product_orders_seq", sequenceName = "product_orders_seq", allocationSize = 50)
     private Integer Id;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Cart cart;
 
     private Integer amount;
 
+    /**
+     * When the line last took stock; lines held longer than the cart hold give their stock back
+     */
+    private Instant reservedAt;
+
     public ProductOrder() {
     }
 
@@ -51,6 +70,14 @@ public class ProductOrder {
         this.amount = amount;
     }
 
+    public Instant getReservedAt() {
+        return reservedAt;
+    }
+
+    public void setReservedAt(Instant reservedAt) {
+        this.reservedAt = reservedAt;
+    }
+
     public double totalPricePerProduct(){
         return product.getPrice()*amount;
     }
@@ -0,0 +1,60 @@
+package com.example.enchanted.Pojo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filters of a faceted product search. Values of the same facet are combined with OR,
+ * different facets are combined with AND. An empty facet does not filter at all.
+ */
+public class ProductSearchInput {
+    private List<Category> category = new ArrayList<>();
+    private List<String> color = new ArrayList<>();
+    private List<String> type = new ArrayList<>();
+    private List<String> price = new ArrayList<>();
+
+    public ProductSearchInput() {
+    }
+
+    public ProductSearchInput(List<Category> category, List<String> color, List<String> type, List<String> price) {
+        this.category = category;
+        this.color = color;
+        this.type = type;
+        this.price = price;
+    }
+
+    public List<Category> getCategory() {
+        return category;
+    }
+
+    public void setCategory(List<Category> category) {
+        this.category = category;
+    }
+
+    public List<String> getColor() {
+        return color;
+    }
+
+    public void setColor(List<String> color) {
+        this.color = color;
+    }
+
+    public List<String> getType() {
+        return type;
+    }
+
+    public void setType(List<String> type) {
+        this.type = type;
+    }
+
+    /**
+     * @return price bands written as "min-max", see {@link PriceBand}
+     */
+    public List<String> getPrice() {
+        return price;
+    }
+
+    public void setPrice(List<String> price) {
+        this.price = price;
+    }
+}
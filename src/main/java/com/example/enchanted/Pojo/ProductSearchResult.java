@@ -0,0 +1,49 @@
+package com.example.enchanted.Pojo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of faceted search results together with the number of matches per facet value.
+ * The count of a value is the number of products that would match if that value were selected
+ * in its own facet while every other facet keeps its current selection.
+ */
+public class ProductSearchResult {
+
+    private final List<Product> products;
+    private final int total;
+    private final String nextCursor;
+    private final Map<String, Map<String, Integer>> facets;
+
+    public ProductSearchResult(List<Product> products, int total, String nextCursor, Map<String, Map<String, Integer>> facets) {
+        this.products = products;
+        this.total = total;
+        this.nextCursor = nextCursor;
+        this.facets = facets;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return number of products matching every filter, across all pages
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return cursor of the next page, or null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return counts keyed by facet name ("category", "color", "type", "price") and then by facet value
+     */
+    public Map<String, Map<String, Integer>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.enchanted.Pojo;
+
+import java.util.List;
+
+/**
+ * Outcome of applying a warehouse stock feed. Only the first malformed lines are listed.
+ */
+public class StockFeedResult {
+
+    private final long lines;
+    private final long updated;
+    private final long unknownProducts;
+    private final long skippedHotProducts;
+    private final long rejected;
+    private final List<ProductImportError> errors;
+    private final long elapsedMillis;
+
+    public StockFeedResult(long lines, long updated, long unknownProducts, long skippedHotProducts, long rejected,
+                           List<ProductImportError> errors, long elapsedMillis) {
+        this.lines = lines;
+        this.updated = updated;
+        this.unknownProducts = unknownProducts;
+        this.skippedHotProducts = skippedHotProducts;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return non-empty lines read from the feed
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return lines naming a product ID that does not exist
+     */
+    public long getUnknownProducts() {
+        return unknownProducts;
+    }
+
+    /**
+     * @return lines left out because their product is in hot inventory mode
+     */
+    public long getSkippedHotProducts() {
+        return skippedHotProducts;
+    }
+
+    /**
+     * @return malformed lines
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<ProductImportError> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.enchanted.Repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Cart line writes made with MySQL's insert-or-increment statement. The unique (cart_id, product_id) key of
+ * product orders decides whether a line is inserted or its amount raised, so adding the same product twice,
+ * even from two requests at once, leaves a single line per product in the cart.
+ */
+public interface CartLineRepository {
+
+    /**
+     * Adds units of a product to a cart: a new line when the product is not in the cart yet, otherwise its amount is raised.
+     * Either way the line's hold starts again
+     * @param cartId
+     * @param productId
+     * @param amount units to add, positive
+     */
+    @Transactional
+    void addToCartLine(Integer cartId, Integer productId, int amount);
+
+    /**
+     * Runs the statement of {@link #addToCartLine} for several products in one JDBC batch, in the iteration order
+     * of the map, so callers pass a map sorted by product id
+     * @param cartId
+     * @param amounts units to add per product id, positive
+     */
+    @Transactional
+    void addToCartLines(Integer cartId, Map<Integer, Integer> amounts);
+}
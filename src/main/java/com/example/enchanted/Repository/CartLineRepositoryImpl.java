@@ -0,0 +1,53 @@
+package com.example.enchanted.Repository;
+
+import com.example.enchanted.Pojo.ProductOrder;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class CartLineRepositoryImpl implements CartLineRepository {
+
+    /**
+     * VALUES(amount) rather than a row alias, which MariaDB does not understand
+     */
+    private static final String UPSERT = "INSERT INTO product_orders (id, cart_id, product_id, amount, reserved_at) VALUES (?, ?, ?, ?, ?)" +
+            " ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), reserved_at = VALUES(reserved_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CartLineRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addToCartLine(Integer cartId, Integer productId, int amount) {
+        jdbcTemplate.update(UPSERT, nextId(), cartId, productId, amount, Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public void addToCartLines(Integer cartId, Map<Integer, Integer> amounts) {
+        List<Object[]> rows = new ArrayList<>(amounts.size());
+        Timestamp reservedAt = Timestamp.from(Instant.now());
+        amounts.forEach((productId, amount) -> rows.add(new Object[]{nextId(), cartId, productId, amount, reservedAt}));
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    /**
+     * Takes the ID from the pooled sequence of ProductOrder, mostly without a round trip. When the line already
+     * exists the ID is left unused.
+     */
+    private Integer nextId() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        return (Integer) session.getFactory().getIdentifierGenerator(ProductOrder.class.getName()).generate(session, null);
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.enchanted.Repository;
 
 import com.example.enchanted.Pojo.Cart;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 @Repository
 public interface CartRepository extends CrudRepository<Cart, Integer> {
     @Query(
@@ -12,4 +16,35 @@ public interface CartRepository extends CrudRepository<Cart, Integer> {
     )
     Cart findCartById(@Param("id") Integer id);
 
+    @Query(
+            "SELECT c.price FROM Cart c where c.id= :id"
+    )
+    Double findPriceById(@Param("id") Integer id);
+
+    /**
+     * Applies a price difference in the database, so concurrent changes to the same cart are never lost
+     */
+    @Modifying
+    @Query(
+            "UPDATE Cart c SET c.price= c.price + :delta where c.id= :id"
+    )
+    int addToPrice(@Param("id") Integer id, @Param("delta") double delta);
+
+    /**
+     * Adds a change in a line's amount at the price the product row has now, not the one a caller may have cached
+     */
+    @Modifying
+    @Query(
+            "UPDATE Cart c SET c.price= c.price + :amount * (SELECT p.price FROM Product p where p.id= :productId) where c.id= :id"
+    )
+    int addLineToPrice(@Param("id") Integer id, @Param("productId") Integer productId, @Param("amount") int amount);
+
+    @Transactional
+    @Modifying
+    @Query(
+            "UPDATE Cart c SET c.price= (SELECT COALESCE(SUM(o.amount * p.price), 0) FROM ProductOrder o JOIN o.product p where o.cart.id= c.id)" +
+                    " where c.id IN :ids"
+    )
+    int recalculatePrices(@Param("ids") Collection<Integer> ids);
+
 }
@@ -0,0 +1,27 @@
+package com.example.enchanted.Repository;
+
+/**
+ * Set-based statements of the checkout. Each one touches every line of a cart at once,
+ * so a checkout costs the same number of statements however many lines the cart has.
+ */
+public interface CheckoutRepository {
+
+    /**
+     * Locks the cart row until the end of the transaction. Every path that changes the lines of a cart calls this
+     * before touching a line or product row, so they all lock in the same order: cart, then lines, then products.
+     * @param cartId
+     * @return false when the cart does not exist
+     */
+    boolean lockCart(Integer cartId);
+
+    /**
+     * Copies every line of the cart, with the current name and price of its product, into the order
+     * @return number of lines copied
+     */
+    int copyCartLines(Integer orderId, Integer cartId);
+
+    /**
+     * Deletes every line of the cart and sets its total back to zero
+     */
+    void clearCart(Integer cartId);
+}
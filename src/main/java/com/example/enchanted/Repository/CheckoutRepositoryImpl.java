@@ -0,0 +1,32 @@
+package com.example.enchanted.Repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class CheckoutRepositoryImpl implements CheckoutRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CheckoutRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean lockCart(Integer cartId) {
+        return !jdbcTemplate.queryForList("SELECT id FROM cart WHERE id = ? FOR UPDATE", Integer.class, cartId).isEmpty();
+    }
+
+    @Override
+    public int copyCartLines(Integer orderId, Integer cartId) {
+        return jdbcTemplate.update(
+                "INSERT INTO order_lines (order_id, product_id, product_name, price, amount)" +
+                        " SELECT ?, p.id, p.name, p.price, o.amount FROM product_orders o JOIN product p ON p.id = o.product_id" +
+                        " WHERE o.cart_id = ? ORDER BY p.id",
+                orderId, cartId);
+    }
+
+    @Override
+    public void clearCart(Integer cartId) {
+        jdbcTemplate.update("DELETE FROM product_orders WHERE cart_id = ?", cartId);
+        jdbcTemplate.update("UPDATE cart SET total_price = 0 WHERE id = ?", cartId);
+    }
+}
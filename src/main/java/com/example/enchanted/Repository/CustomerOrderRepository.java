@@ -0,0 +1,19 @@
+package com.example.enchanted.Repository;
+
+import com.example.enchanted.Pojo.CustomerOrder;
+import com.example.enchanted.Pojo.OrderLine;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CustomerOrderRepository extends CrudRepository<CustomerOrder, Integer>, CheckoutRepository {
+
+    @Query(
+            "SELECT l FROM OrderLine l where l.orderId= :orderId ORDER BY l.productId"
+    )
+    List<OrderLine> findLinesByOrderId(@Param("orderId") Integer orderId);
+}
@@ -2,18 +2,17 @@ package com.example.enchanted.Repository;
 
 
 import com.example.enchanted.Pojo.Customer;
+import com.example.enchanted.Pojo.CustomerSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-
 @Repository
 public interface CustomerRepository extends CrudRepository<Customer, Integer> {
 
-    List<Customer> findAll();
-
     @Query(
             "SELECT c FROM Customer c where c.id= :id"
     )
@@ -24,6 +23,18 @@ public interface CustomerRepository extends CrudRepository<Customer, Integer> {
     )
     Customer findCustomerByCartId(@Param("id") Integer id);
 
+    /**
+     * One keyset page of customer summaries. The cart ID comes from the foreign key column, without a join.
+     * @param name name prefix with LIKE wildcards escaped by '!', or null for any name
+     * @param email email prefix escaped the same way, or null for any email
+     */
+    @Query(
+            "SELECT new com.example.enchanted.Pojo.CustomerSummary(c.id, c.name, c.email, c.cart.id) FROM Customer c" +
+                    " where c.id> :after AND (:name IS NULL OR c.name LIKE CONCAT(:name, '%') ESCAPE '!')" +
+                    " AND (:email IS NULL OR c.email LIKE CONCAT(:email, '%') ESCAPE '!') ORDER BY c.id"
+    )
+    Slice<CustomerSummary> findCustomerSummaries(@Param("name") String name, @Param("email") String email,
+                                                 @Param("after") Integer after, Pageable pageable);
 
 
 
@@ -0,0 +1,20 @@
+package com.example.enchanted.Repository;
+
+import com.example.enchanted.Pojo.Product;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts for bulk imports. Product IDs come from a pooled sequence, so Hibernate sends the inserts
+ * in JDBC batches of hibernate.jdbc.batch_size instead of one round trip per product.
+ */
+public interface ProductImportRepository {
+
+    /**
+     * Inserts all products in a single transaction; either every product is written or none is
+     * @param products new products, left unchanged; their IDs are not read back
+     */
+    @Transactional
+    void insertProducts(List<Product> products);
+}
@@ -0,0 +1,26 @@
+package com.example.enchanted.Repository;
+
+import com.example.enchanted.Pojo.Product;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class ProductImportRepositoryImpl implements ProductImportRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Copies are persisted, so a caller can hand the same products in again after a failed batch
+     */
+    @Override
+    public void insertProducts(List<Product> products) {
+        for (Product product : products) {
+            entityManager.persist(new Product(null, product.getName(), product.getCategory(), product.getType(),
+                    product.getColor(), product.getPrice(), product.getAvailableQuantity()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -1,28 +1,79 @@
 package com.example.enchanted.Repository;
 
+import com.example.enchanted.Pojo.ProductDto;
 import com.example.enchanted.Pojo.ProductOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
-public interface ProductOrderRepository extends CrudRepository<ProductOrder,Integer> {
+public interface ProductOrderRepository extends CrudRepository<ProductOrder,Integer>, CartLineRepository {
 
+    /**
+     * Loads the line with its product, which the caller prices and returns
+     */
+    @EntityGraph(ProductOrder.WITH_PRODUCT)
     @Query(
             "SELECT p FROM ProductOrder p where p.cart.id= :cartId AND p.product.id= :productId"
     )
     ProductOrder findProductByCartIdAndProductId(@Param("cartId") Integer cartId, @Param("productId") Integer productId);
 
+    /**
+     * Loads the lines without their products and carts; only the IDs of those are at hand
+     */
     @Query(
             "SELECT p FROM ProductOrder p where p.cart.id= :cartId"
     )
     List<ProductOrder> findProductByCartId(Integer cartId);
 
+    /**
+     * Reads the cart view in a single query, without loading ProductOrder or Product entities
+     * @param cartId
+     * @return one row per cart line, in the order the lines were added
+     */
     @Query(
-            "SELECT p FROM ProductOrder p where p.cart.id= :cartId  "
+            "SELECT new com.example.enchanted.Pojo.ProductDto(p.name, p.price, p.type, p.category, p.color, o.amount)" +
+                    " FROM ProductOrder o JOIN o.product p where o.cart.id= :cartId ORDER BY o.id"
     )
-    List<ProductOrder> ProductsInCart(@Param("cartId") Integer cartId);
+    List<ProductDto> findCartLines(@Param("cartId") Integer cartId);
+
+    @Query(
+            "SELECT COUNT(o) FROM ProductOrder o where o.cart.id= :cartId"
+    )
+    long countByCartId(@Param("cartId") Integer cartId);
+
+    @Query(
+            "SELECT COALESCE(SUM(o.amount * p.price), 0) FROM ProductOrder o JOIN o.product p where o.cart.id= :cartId"
+    )
+    double sumLinePrices(@Param("cartId") Integer cartId);
+
+    /**
+     * Served from the (product_id, cart_id) index of product orders, one page of carts at a time
+     */
+    @Query(
+            "SELECT DISTINCT o.cart.id FROM ProductOrder o where o.product.id= :productId AND o.cart.id> :after ORDER BY o.cart.id"
+    )
+    List<Integer> findCartIdsByProductId(@Param("productId") Integer productId, @Param("after") Integer after, Pageable pageable);
+
+    /**
+     * Served from the reserved_at index of product orders, one page of carts at a time
+     */
+    @Query(
+            "SELECT DISTINCT o.cart.id FROM ProductOrder o where o.reservedAt< :before AND o.cart.id> :after ORDER BY o.cart.id"
+    )
+    List<Integer> findCartIdsReservedBefore(@Param("before") Instant before, @Param("after") Integer after, Pageable pageable);
+
+    /**
+     * Loads the lines without their products; only the product IDs are used
+     */
+    @Query(
+            "SELECT o FROM ProductOrder o where o.cart.id= :cartId AND o.reservedAt< :before"
+    )
+    List<ProductOrder> findLinesReservedBefore(@Param("cartId") Integer cartId, @Param("before") Instant before);
 }
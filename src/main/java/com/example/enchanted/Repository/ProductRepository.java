@@ -2,57 +2,168 @@ package com.example.enchanted.Repository;
 
 import com.example.enchanted.Pojo.Category;
 import com.example.enchanted.Pojo.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends CrudRepository<Product, Integer> {
-
+public interface ProductRepository extends CrudRepository<Product, Integer>, ProductStockRepository, ProductImportRepository {
+
+    /**
+     * Integer.MIN_VALUE makes MySQL Connector/J stream rows one at a time instead of buffering the whole result set
+     */
+    String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    /**
+     * Query cache region of the finder queries. Hibernate drops its entries whenever the product table is written.
+     */
+    String QUERY_CACHE_REGION = "product-queries";
+
+    /**
+     * Reads the whole table for the catalog snapshot and the stock levels, so neither the query nor the loaded
+     * products go through the second-level cache, which would otherwise be flooded with every product at once
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "false"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
     @Query(
             "SELECT p FROM Product p "
     )
     List<Product> findAll();
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)
+    })
     @Query(
             "SELECT p FROM Product p where p.id= :id"
     )
     Product findProductById(@Param("id") Integer id);
 
+    /**
+     * Loads every product of a bulk cart request with one IN query
+     */
+    @Query(
+            "SELECT p FROM Product p where p.id IN :ids"
+    )
+    List<Product> findProductsByIds(@Param("ids") Collection<Integer> ids);
+
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)
+    })
     @Query(
             "SELECT p FROM Product p where p.category= :category"
     )
     List<Product> findProductByCategory(@Param("category") Category category);
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)
+    })
     @Query(
             "SELECT p FROM Product p where p.color= :color"
     )
     List<Product> findProductByColor (@Param("color") String color);
 
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)
+    })
     @Query(
             "SELECT p FROM Product p where p.price= :price"
     )
     List<Product> findProductByPrice (@Param("price") double price);
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)
+    })
     @Query(
             "SELECT p FROM Product p where p.type= :type"
     )
     List<Product> findProductByType (@Param("type") String type);
 
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = QUERY_CACHE_REGION)
+    })
     @Query(
             "SELECT p FROM Product p where p.category= :category AND  p.color= :color"
     )
     List<Product> findProductByCategoryAndColor(@Param("category") Category category, @Param("color") String color);
 
 
+    /**
+     * Must be consumed inside a transaction and closed afterwards. Like {@link #findAll()} it bypasses the
+     * second-level cache, an export must not push every product into the bounded entity region.
+     * @return every product, in ID order, read lazily from an open cursor
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = STREAMING_FETCH_SIZE),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheable", value = "false"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    @Query(
+            "SELECT p FROM Product p ORDER BY p.id"
+    )
+    Stream<Product> streamAll();
+
+    @Query(
+            "SELECT p FROM Product p where p.id> :after ORDER BY p.id"
+    )
+    Slice<Product> findProductsAfter(@Param("after") Integer after, Pageable pageable);
+
+    @Query(
+            "SELECT p FROM Product p where p.category= :category AND p.id> :after ORDER BY p.id"
+    )
+    Slice<Product> findProductByCategoryAfter(@Param("category") Category category, @Param("after") Integer after, Pageable pageable);
+
+    @Query(
+            "SELECT p FROM Product p where p.color= :color AND p.id> :after ORDER BY p.id"
+    )
+    Slice<Product> findProductByColorAfter(@Param("color") String color, @Param("after") Integer after, Pageable pageable);
+
+    @Query(
+            "SELECT p FROM Product p where p.price= :price AND p.id> :after ORDER BY p.id"
+    )
+    Slice<Product> findProductByPriceAfter(@Param("price") double price, @Param("after") Integer after, Pageable pageable);
+
+    @Query(
+            "SELECT p FROM Product p where p.price BETWEEN :min AND :max" +
+                    " AND (p.price> :afterPrice OR (p.price= :afterPrice AND p.id> :afterId)) ORDER BY p.price, p.id"
+    )
+    Slice<Product> findProductByPriceRange(@Param("min") double min, @Param("max") double max,
+                                           @Param("afterPrice") double afterPrice, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query(
+            "SELECT p FROM Product p where p.category= :category AND p.price BETWEEN :min AND :max" +
+                    " AND (p.price> :afterPrice OR (p.price= :afterPrice AND p.id> :afterId)) ORDER BY p.price, p.id"
+    )
+    Slice<Product> findProductByCategoryAndPriceRange(@Param("category") Category category, @Param("min") double min, @Param("max") double max,
+                                                      @Param("afterPrice") double afterPrice, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query(
+            "SELECT p FROM Product p where p.type= :type AND p.id> :after ORDER BY p.id"
+    )
+    Slice<Product> findProductByTypeAfter(@Param("type") String type, @Param("after") Integer after, Pageable pageable);
+
     @Query(
-            "SELECT p FROM Product p where p.availableQuantity=0"
+            "SELECT p FROM Product p where p.category= :category AND  p.color= :color AND p.id> :after ORDER BY p.id"
     )
-    List<Product> outOfStock();
+    Slice<Product> findProductByCategoryAndColorAfter(@Param("category") Category category, @Param("color") String color, @Param("after") Integer after, Pageable pageable);
 
 
 
@@ -0,0 +1,80 @@
+package com.example.enchanted.Repository;
+
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stock changes made with plain SQL. Going around Hibernate keeps these hot writes from invalidating
+ * the whole Product second-level cache region, as a bulk JPQL update would; callers evict the changed product instead.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Takes the amount from the available quantity only if enough is left, in one conditional UPDATE,
+     * so concurrent orders can never oversell without reading the row first. The UPDATE takes the row lock
+     * of the product, which is held until the surrounding transaction ends, so callers keep the statements
+     * that follow it in the same transaction short.
+     * @param productId
+     * @param amount units to take, positive
+     * @return true when the stock was reserved, false when not enough was available or the product does not exist
+     */
+    boolean reserveStock(Integer productId, int amount);
+
+    /**
+     * Runs the conditional update of {@link #reserveStock} in a transaction of its own, so the units stay taken
+     * from the row even when the caller's transaction rolls back. Hot inventory leases its blocks of stock with it.
+     * @param productId
+     * @param amount units to take, positive
+     * @return true when the units were taken, false when not enough was available or the product does not exist
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    boolean leaseStock(Integer productId, int amount);
+
+    /**
+     * Reads the available quantity straight from the product table, past the second-level cache
+     * @param productId
+     * @return the available quantity, or null when the product does not exist
+     */
+    Integer findAvailableQuantity(Integer productId);
+
+    /**
+     * Gives previously reserved units back to the available quantity
+     * @param productId
+     * @param amount units to give back, positive
+     */
+    void releaseStock(Integer productId, int amount);
+
+    /**
+     * Runs the conditional update of {@link #reserveStock} for several products in one JDBC batch.
+     * It joins the caller's transaction, so a later failure gives all of the stock back. Rows are updated in the
+     * iteration order of the map, so callers pass a map sorted by product id to lock rows in the same order everywhere.
+     * @param amounts units to take per product id, positive
+     * @return ids of the products whose stock was reserved
+     */
+    Set<Integer> reserveStocks(Map<Integer, Integer> amounts);
+
+    /**
+     * Adds a signed change to the available quantity of several products in one JDBC batch and one transaction,
+     * in the iteration order of the map like {@link #reserveStocks}. A change that would take the quantity
+     * below zero leaves the row alone, like a failed {@link #reserveStock}.
+     * @param deltas change per product id
+     * @return ids of the products whose quantity was changed
+     */
+    @Transactional
+    Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas);
+
+    /**
+     * Sets the available quantity of many products from their on-hand quantity in one JDBC batch and transaction.
+     * Units held in cart lines were already taken from the available quantity when they were added, so they are
+     * subtracted from the on-hand quantity again; the result never goes below zero.
+     * @param productIds
+     * @param onHand on-hand quantity of the product at the same index
+     * @param count number of leading entries to apply
+     * @return matched rows per entry, 0 when the product does not exist
+     */
+    @Transactional
+    int[] setOnHandQuantities(int[] productIds, int[] onHand, int count);
+}
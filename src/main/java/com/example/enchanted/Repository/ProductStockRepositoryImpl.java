@@ -0,0 +1,106 @@
+package com.example.enchanted.Repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    /**
+     * Units in cart lines are found through idx_product_orders_product_cart
+     */
+    private static final String SET_ON_HAND = "UPDATE product SET available_quantity = GREATEST(? -" +
+            " (SELECT COALESCE(SUM(o.amount), 0) FROM product_orders o WHERE o.product_id = ?), 0) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean reserveStock(Integer productId, int amount) {
+        return jdbcTemplate.update(
+                "UPDATE product SET available_quantity = available_quantity - ? WHERE id = ? AND available_quantity >= ?",
+                amount, productId, amount) == 1;
+    }
+
+    @Override
+    public boolean leaseStock(Integer productId, int amount) {
+        return reserveStock(productId, amount);
+    }
+
+    @Override
+    public Integer findAvailableQuantity(Integer productId) {
+        List<Integer> quantities = jdbcTemplate.queryForList(
+                "SELECT COALESCE(available_quantity, 0) FROM product WHERE id = ?", Integer.class, productId);
+        return quantities.isEmpty() ? null : quantities.get(0);
+    }
+
+    @Override
+    public void releaseStock(Integer productId, int amount) {
+        jdbcTemplate.update("UPDATE product SET available_quantity = available_quantity + ? WHERE id = ?", amount, productId);
+    }
+
+    @Override
+    public Set<Integer> reserveStocks(Map<Integer, Integer> amounts) {
+        List<Integer> productIds = new ArrayList<>(amounts.keySet());
+        List<Object[]> rows = new ArrayList<>(amounts.size());
+        for (Integer productId : productIds) {
+            int amount = amounts.get(productId);
+            rows.add(new Object[]{amount, productId, amount});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE product SET available_quantity = available_quantity - ? WHERE id = ? AND available_quantity >= ?", rows);
+        Set<Integer> reserved = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                reserved.add(productIds.get(i));
+            }
+        }
+        return reserved;
+    }
+
+    @Override
+    public Set<Integer> applyStockDeltas(Map<Integer, Integer> deltas) {
+        List<Integer> productIds = new ArrayList<>(deltas.keySet());
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Integer productId : productIds) {
+            int delta = deltas.get(productId);
+            rows.add(new Object[]{delta, productId, delta});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE product SET available_quantity = available_quantity + ? WHERE id = ? AND available_quantity + ? >= 0", rows);
+        Set<Integer> applied = new HashSet<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                applied.add(productIds.get(i));
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public int[] setOnHandQuantities(int[] productIds, int[] onHand, int count) {
+        return jdbcTemplate.batchUpdate(SET_ON_HAND, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setInt(1, onHand[i]);
+                statement.setInt(2, productIds[i]);
+                statement.setInt(3, productIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+}
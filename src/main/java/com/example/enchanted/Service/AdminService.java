@@ -1,17 +1,35 @@
 package com.example.enchanted.Service;
 import com.example.enchanted.Pojo.Category;
 import com.example.enchanted.Pojo.Customer;
+import com.example.enchanted.Pojo.CustomerSummary;
 import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductCacheStatistics;
+import com.example.enchanted.Pojo.ProductImportResult;
+import com.example.enchanted.Pojo.StockFeedResult;
+
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 public interface AdminService {
     void delete (Integer id);
     Product create(String name, Category category, String type, String color, double price, Integer availableQuantity);
     Product edit(Integer id, String name, double price, Integer availableQuantity);
     List<Product> outOfStockProducts();
-    List<Customer> findAllCustomers();
+    List<Product> lowStockProducts(Category category);
+    Slice<CustomerSummary> findCustomers(String name, String email, Integer afterId, int limit);
     Customer findCustomerById(Integer id);
     Customer findCustomerByCartId(Integer id);
+    ProductCacheStatistics productCacheStatistics();
+    void enableHotInventory(Integer id);
+    void disableHotInventory(Integer id);
+    Set<Integer> hotInventoryProducts();
+    ProductImportResult importCsv(InputStream input) throws IOException;
+    ProductImportResult importNdjson(InputStream input) throws IOException;
+    StockFeedResult applyStockFeed(String fileName) throws IOException;
 
 
 }
@@ -0,0 +1,61 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Repository.ProductOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Gives back the stock held by cart lines nobody touched for {@code cart.hold.expiry-minutes} (0 keeps lines forever).
+ * Adding or changing a line starts its hold again. The carts are found through the reserved_at index of product
+ * orders in batches, and each cart is released in its own transaction through the customer service.
+ */
+@Component
+public class CartHoldExpiry {
+
+    private final ProductOrderRepository productOrderRepository;
+    private final CustomerService customerService;
+    private final Duration hold;
+    private final int batchSize;
+
+    public CartHoldExpiry(ProductOrderRepository productOrderRepository, CustomerService customerService,
+                          @Value("${cart.hold.expiry-minutes:60}") long expiryMinutes,
+                          @Value("${cart.hold.batch-size:500}") int batchSize) {
+        this.productOrderRepository = productOrderRepository;
+        this.customerService = customerService;
+        this.hold = Duration.ofMinutes(expiryMinutes);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${cart.hold.check-interval-ms:60000}")
+    public void releaseExpired() {
+        if (hold.isZero() || hold.isNegative()) {
+            return;
+        }
+        release(Instant.now().minus(hold));
+    }
+
+    /**
+     * @param reservedBefore lines that took their stock before this time are released
+     * @return number of lines released
+     */
+    public int release(Instant reservedBefore) {
+        int released = 0;
+        int after = 0;
+        while (true) {
+            List<Integer> cartIds = productOrderRepository.findCartIdsReservedBefore(reservedBefore, after, PageRequest.of(0, batchSize));
+            for (Integer cartId : cartIds) {
+                released += customerService.releaseExpiredLines(cartId, reservedBefore);
+            }
+            if (cartIds.size() < batchSize) {
+                return released;
+            }
+            after = cartIds.get(cartIds.size() - 1);
+        }
+    }
+}
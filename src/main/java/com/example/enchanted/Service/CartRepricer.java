@@ -0,0 +1,58 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Repository.CartRepository;
+import com.example.enchanted.Repository.ProductOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Recomputes the totals of the carts holding a product after its price changed. The carts are found through
+ * the product orders index on (product_id, cart_id) and repriced in batches, each one in its own transaction,
+ * so a popular product never turns into a single long-running update.
+ */
+@Component
+public class CartRepricer {
+
+    private final ProductOrderRepository productOrderRepository;
+    private final CartRepository cartRepository;
+    private final int batchSize;
+
+    public CartRepricer(ProductOrderRepository productOrderRepository, CartRepository cartRepository,
+                        @Value("${cart.reprice.batch-size:500}") int batchSize) {
+        this.productOrderRepository = productOrderRepository;
+        this.cartRepository = cartRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Async
+    @EventListener
+    public void onPriceChanged(ProductPriceChangedEvent event) {
+        reprice(event.getProductId());
+    }
+
+    /**
+     * @param productId product whose price changed
+     * @return number of carts repriced
+     */
+    public int reprice(Integer productId) {
+        int repriced = 0;
+        int after = 0;
+        while (true) {
+            List<Integer> cartIds = productOrderRepository.findCartIdsByProductId(productId, after, PageRequest.of(0, batchSize));
+            if (cartIds.isEmpty()) {
+                return repriced;
+            }
+            cartRepository.recalculatePrices(cartIds);
+            repriced += cartIds.size();
+            if (cartIds.size() < batchSize) {
+                return repriced;
+            }
+            after = cartIds.get(cartIds.size() - 1);
+        }
+    }
+}
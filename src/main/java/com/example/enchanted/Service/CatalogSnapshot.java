@@ -0,0 +1,366 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.PriceBand;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductSearchResult;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.*;
+
+/**
+ * Immutable view of the whole product catalog with secondary indexes on category, color and type,
+ * and sorted price indexes for range lookups. Every list is ordered by product ID. A snapshot is never modified once built; changes produce a new one.
+ */
+public final class CatalogSnapshot {
+
+    private static final CatalogSnapshot EMPTY = new CatalogSnapshot(new TreeMap<>());
+
+    private final Product[] products;
+    private final int[] ids;
+    private final Map<Category, List<Product>> byCategory;
+    private final Map<String, List<Product>> byColor;
+    private final Map<String, List<Product>> byType;
+    private final PriceIndex byPrice;
+    private final Map<Category, PriceIndex> byCategoryAndPrice;
+    private final FacetIndex facets;
+
+    private CatalogSnapshot(NavigableMap<Integer, Product> byId) {
+        this.products = byId.values().toArray(new Product[0]);
+        this.ids = new int[products.length];
+        for (int i = 0; i < products.length; i++) {
+            ids[i] = products[i].getId();
+        }
+
+        Map<Category, List<Product>> categories = new EnumMap<>(Category.class);
+        Map<String, List<Product>> colors = new HashMap<>();
+        Map<String, List<Product>> types = new HashMap<>();
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                categories.computeIfAbsent(product.getCategory(), key -> new ArrayList<>()).add(product);
+            }
+            if (product.getColor() != null) {
+                colors.computeIfAbsent(key(product.getColor()), key -> new ArrayList<>()).add(product);
+            }
+            if (product.getType() != null) {
+                types.computeIfAbsent(key(product.getType()), key -> new ArrayList<>()).add(product);
+            }
+        }
+        this.byCategory = freeze(categories);
+        this.byColor = freeze(colors);
+        this.byType = freeze(types);
+
+        this.byPrice = PriceIndex.of(byId.values());
+        Map<Category, PriceIndex> categoryPrices = new EnumMap<>(Category.class);
+        for (Map.Entry<Category, List<Product>> entry : byCategory.entrySet()) {
+            categoryPrices.put(entry.getKey(), PriceIndex.of(entry.getValue()));
+        }
+        this.byCategoryAndPrice = categoryPrices;
+        this.facets = new FacetIndex(products, byPrice);
+    }
+
+    private CatalogSnapshot(Product[] products, int[] ids, Map<Category, List<Product>> byCategory,
+                            Map<String, List<Product>> byColor, Map<String, List<Product>> byType, PriceIndex byPrice,
+                            Map<Category, PriceIndex> byCategoryAndPrice, FacetIndex facets) {
+        this.products = products;
+        this.ids = ids;
+        this.byCategory = byCategory;
+        this.byColor = byColor;
+        this.byType = byType;
+        this.byPrice = byPrice;
+        this.byCategoryAndPrice = byCategoryAndPrice;
+        this.facets = facets;
+    }
+
+    public static CatalogSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a snapshot out of the given products
+     * @param products
+     * @return snapshot indexing the given products
+     */
+    public static CatalogSnapshot of(Iterable<Product> products) {
+        NavigableMap<Integer, Product> byId = new TreeMap<>();
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+        }
+        return new CatalogSnapshot(byId);
+    }
+
+    /**
+     * @param product product to add or replace
+     * @return new snapshot containing the given product
+     */
+    public CatalogSnapshot with(Product product) {
+        return withAll(Collections.singletonList(product));
+    }
+
+    /**
+     * @param products products to add or replace
+     * @return new snapshot containing all the given products, built once
+     */
+    public CatalogSnapshot withAll(Collection<Product> products) {
+        NavigableMap<Integer, Product> copy = byId();
+        for (Product product : products) {
+            copy.put(product.getId(), product);
+        }
+        return new CatalogSnapshot(copy);
+    }
+
+    /**
+     * Replaces products whose available quantity changed. No index is keyed by stock, so the new snapshot shares
+     * every index with this one and only copies the arrays and lists that hold one of the given products.
+     * @param changed new versions of products in this snapshot that differ in available quantity only; when one is
+     *                missing or differs in anything indexed, the snapshot is rebuilt as by {@link #withAll(Collection)}
+     * @return new snapshot containing the given products
+     */
+    public CatalogSnapshot withStock(Collection<Product> changed) {
+        for (Product product : changed) {
+            Product current = findById(product.getId());
+            if (current == null || current.getCategory() != product.getCategory()
+                    || !Objects.equals(current.getColor(), product.getColor())
+                    || !Objects.equals(current.getType(), product.getType())
+                    || Double.compare(current.getPrice(), product.getPrice()) != 0) {
+                return withAll(changed);
+            }
+        }
+        Product[] patched = products.clone();
+        Map<Category, List<Product>> categories = new EnumMap<>(Category.class);
+        Map<String, List<Product>> colors = new HashMap<>();
+        Map<String, List<Product>> types = new HashMap<>();
+        Map<Category, List<Product>> categoryPrices = new EnumMap<>(Category.class);
+        for (Product product : changed) {
+            patched[Arrays.binarySearch(ids, product.getId())] = product;
+            if (product.getCategory() != null) {
+                replace(byCategory, categories, product.getCategory(), product);
+                categoryPrices.computeIfAbsent(product.getCategory(), key -> new ArrayList<>()).add(product);
+            }
+            if (product.getColor() != null) {
+                replace(byColor, colors, key(product.getColor()), product);
+            }
+            if (product.getType() != null) {
+                replace(byType, types, key(product.getType()), product);
+            }
+        }
+        Map<Category, PriceIndex> patchedCategoryPrices = new EnumMap<>(Category.class);
+        patchedCategoryPrices.putAll(byCategoryAndPrice);
+        categoryPrices.forEach((category, inCategory) ->
+                patchedCategoryPrices.put(category, byCategoryAndPrice.get(category).withReplaced(inCategory)));
+        PriceIndex patchedPrices = byPrice.withReplaced(changed);
+        return new CatalogSnapshot(patched, ids, patch(byCategory, categories, new EnumMap<>(Category.class)),
+                patch(byColor, colors, new HashMap<>()), patch(byType, types, new HashMap<>()),
+                patchedPrices, patchedCategoryPrices, facets.withProducts(patched, patchedPrices));
+    }
+
+    /**
+     * @param productId ID of the product to drop
+     * @return new snapshot without the given product
+     */
+    public CatalogSnapshot without(Integer productId) {
+        if (findById(productId) == null) {
+            return this;
+        }
+        NavigableMap<Integer, Product> copy = byId();
+        copy.remove(productId);
+        return new CatalogSnapshot(copy);
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public List<Product> findAll() {
+        return new ArrayList<>(Arrays.asList(products));
+    }
+
+    public Product findById(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        int position = Arrays.binarySearch(ids, id);
+        return position >= 0 ? products[position] : null;
+    }
+
+    public List<Product> findByCategory(Category category) {
+        return byCategory.getOrDefault(category, Collections.emptyList());
+    }
+
+    public List<Product> findByColor(String color) {
+        return byColor.getOrDefault(key(color), Collections.emptyList());
+    }
+
+    public List<Product> findByType(String type) {
+        return byType.getOrDefault(key(type), Collections.emptyList());
+    }
+
+    public List<Product> findByCategoryAndColor(Category category, String color) {
+        List<Product> candidates = narrowest(category, color);
+        String colorKey = key(color);
+        List<Product> result = new ArrayList<>();
+        for (Product product : candidates) {
+            if (matches(product, category, colorKey)) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keyset page over the whole catalog
+     * @param afterId ID of the last product of the previous page, or 0 for the first page
+     * @param limit maximum number of products in the page
+     * @return products with an ID greater than afterId, in ID order
+     */
+    public Slice<Product> findAll(int afterId, int limit) {
+        int position = Arrays.binarySearch(ids, afterId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+        int to = (int) Math.min((long) from + limit, products.length);
+        return new SliceImpl<>(new ArrayList<>(Arrays.asList(products).subList(from, to)), PageRequest.of(0, limit), to < products.length);
+    }
+
+    public Slice<Product> findByCategory(Category category, int afterId, int limit) {
+        return page(findByCategory(category), afterId, limit);
+    }
+
+    public Slice<Product> findByColor(String color, int afterId, int limit) {
+        return page(findByColor(color), afterId, limit);
+    }
+
+    public Slice<Product> findByType(String type, int afterId, int limit) {
+        return page(findByType(type), afterId, limit);
+    }
+
+    public Slice<Product> findByCategoryAndColor(Category category, String color, int afterId, int limit) {
+        List<Product> candidates = narrowest(category, color);
+        String colorKey = key(color);
+        List<Product> content = new ArrayList<>();
+        boolean hasNext = false;
+        for (int i = firstAfter(candidates, afterId); i < candidates.size(); i++) {
+            Product product = candidates.get(i);
+            if (!matches(product, category, colorKey)) {
+                continue;
+            }
+            if (content.size() == limit) {
+                hasNext = true;
+                break;
+            }
+            content.add(product);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+
+    /**
+     * @param min lowest price, inclusive
+     * @param max highest price, inclusive
+     * @param category only products of this category, or null for every category
+     * @param afterPrice price of the last product of the previous page
+     * @param afterId ID of the last product of the previous page
+     * @param limit maximum number of products in the page
+     * @return products priced between min and max, cheapest first, ties ordered by ID
+     */
+    public Slice<Product> findByPriceRange(double min, double max, Category category, double afterPrice, int afterId, int limit) {
+        PriceIndex index = category == null ? byPrice : byCategoryAndPrice.getOrDefault(category, PriceIndex.empty());
+        return index.between(min, max, afterPrice, afterId, limit);
+    }
+
+    /**
+     * Faceted search over the bitmap indexes. Colors and types are matched case-insensitively.
+     * @param categories selected categories, empty for no filter
+     * @param colors selected colors, empty for no filter
+     * @param types selected types, empty for no filter
+     * @param priceFilter selected price bands, empty for no filter
+     * @param priceFacets price bands to report counts for
+     * @param afterId ID of the last product of the previous page, or 0 for the first page
+     * @param limit maximum number of products in the page
+     * @return matching products in ID order, with per-facet counts
+     */
+    public ProductSearchResult search(Collection<Category> categories, Collection<String> colors, Collection<String> types,
+                                      List<PriceBand> priceFilter, List<PriceBand> priceFacets, int afterId, int limit) {
+        Set<String> colorKeys = new HashSet<>();
+        colors.forEach(color -> colorKeys.add(key(color)));
+        Set<String> typeKeys = new HashSet<>();
+        types.forEach(type -> typeKeys.add(key(type)));
+        Set<Category> categoryFilter = categories.isEmpty() ? EnumSet.noneOf(Category.class) : EnumSet.copyOf(categories);
+        return facets.search(categoryFilter, colorKeys, typeKeys, priceFilter, priceFacets, afterId, limit);
+    }
+
+    private List<Product> narrowest(Category category, String color) {
+        List<Product> inCategory = findByCategory(category);
+        List<Product> inColor = findByColor(color);
+        return inCategory.size() <= inColor.size() ? inCategory : inColor;
+    }
+
+    private static boolean matches(Product product, Category category, String colorKey) {
+        return product.getCategory() == category && product.getColor() != null && key(product.getColor()).equals(colorKey);
+    }
+
+    private static Slice<Product> page(List<Product> products, int afterId, int limit) {
+        int from = firstAfter(products, afterId);
+        int to = (int) Math.min((long) from + limit, products.size());
+        return new SliceImpl<>(new ArrayList<>(products.subList(from, to)), PageRequest.of(0, limit), to < products.size());
+    }
+
+    /**
+     * Binary search over a list ordered by ID
+     * @return position of the first product whose ID is greater than afterId
+     */
+    private static int firstAfter(List<Product> products, int afterId) {
+        int low = 0;
+        int high = products.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (products.get(mid).getId() <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Colors and types are matched case-insensitively, the same way the default MySQL collation compares them.
+     */
+    static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private NavigableMap<Integer, Product> byId() {
+        NavigableMap<Integer, Product> byId = new TreeMap<>();
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+        }
+        return byId;
+    }
+
+    /**
+     * Puts the product in place of its former version in a copy of the list it belongs to; the list is copied once
+     */
+    private static <K> void replace(Map<K, List<Product>> index, Map<K, List<Product>> copies, K key, Product product) {
+        List<Product> list = copies.computeIfAbsent(key, k -> new ArrayList<>(index.get(k)));
+        list.set(firstAfter(list, product.getId() - 1), product);
+    }
+
+    /**
+     * @return the index with the copied lists in place of the originals
+     */
+    private static <K> Map<K, List<Product>> patch(Map<K, List<Product>> index, Map<K, List<Product>> copies, Map<K, List<Product>> patched) {
+        if (copies.isEmpty()) {
+            return index;
+        }
+        patched.putAll(index);
+        patched.putAll(freeze(copies));
+        return patched;
+    }
+
+    private static <K> Map<K, List<Product>> freeze(Map<K, List<Product>> index) {
+        for (Map.Entry<K, List<Product>> entry : index.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return index;
+    }
+}
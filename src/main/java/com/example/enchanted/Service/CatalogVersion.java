@@ -0,0 +1,46 @@
+package com.example.enchanted.Service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the product catalog, bumped after every product write once the change is visible to readers.
+ * The token carries the start time of this instance, so versions handed out before a restart are never reused.
+ * Stock changes, imports and stock feeds bump it once committed, whether or not the in-memory catalog is loaded;
+ * the catalog bumps it again when it has applied them to its snapshot.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public void increment() {
+        version.incrementAndGet();
+    }
+
+    public String token() {
+        return epoch + "-" + version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockFeedApplied(StockFeedAppliedEvent event) {
+        increment();
+    }
+}
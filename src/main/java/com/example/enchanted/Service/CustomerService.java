@@ -1,24 +1,38 @@
 package com.example.enchanted.Service;
 
 import com.example.enchanted.Pojo.*;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerService {
-    List<Product> findAll();
     Product findProductById(Integer id);
-    List<Product> findProductByCategory(Category category);
-    List<Product> findProductByColor (String color);
-    List<Product> findProductByPrice (double price);
-    List<Product> findProductByType (String type);
-    List<Product> findProductByCategoryAndColor(Category category, String color);
+    Slice<Product> findAll(Integer afterId, int limit);
+    void streamAll(Consumer<Product> action);
+    SseEmitter subscribeToProductChanges(boolean missedChanges);
+    Slice<Product> findProductByCategory(Category category, Integer afterId, int limit);
+    Slice<Product> findProductByColor(String color, Integer afterId, int limit);
+    Slice<Product> findProductByPrice(double price, Integer afterId, int limit);
+    Slice<Product> findProductByPriceRange(double min, double max, Category category, PriceCursor after, int limit);
+    Slice<Product> findProductByType(String type, Integer afterId, int limit);
+    Slice<Product> findProductByCategoryAndColor(Category category, String color, Integer afterId, int limit);
+    ProductSearchResult search(ProductSearchInput input, Integer afterId, int limit);
+    List<Product> searchText(String query, int limit);
+    List<String> autocomplete(String prefix, int limit);
+    String catalogVersion();
     void createOrder(Integer cartId, Product product, Integer productAmount);
     void deleteProductFromCart(Integer cartId,Integer productId);
+    CartLinesResult addProductsToCart(Integer cartId, List<CartLineInput> lines);
+    CartLinesResult replaceCart(Integer cartId, List<CartLineInput> lines);
     ProductOrder editAmount(Integer cartId, Integer productId,Integer amount);
     Customer registerCustomer(String name, String email, String phoneNumber, String address);
     List<ProductDto> viewProductsInCart(Integer cartId);
     Double totalPrice (Integer cartId);
+    CustomerOrder checkout(Integer cartId);
+    int releaseExpiredLines(Integer cartId, Instant reservedBefore);
 
 
 }
@@ -2,26 +2,52 @@ package com.example.enchanted.Service;
 
 import com.example.enchanted.Pojo.Category;
 import com.example.enchanted.Pojo.Customer;
+import com.example.enchanted.Pojo.CustomerSummary;
 import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductCacheStatistics;
+import com.example.enchanted.Pojo.ProductImportResult;
+import com.example.enchanted.Pojo.StockFeedResult;
 import com.example.enchanted.Repository.CustomerRepository;
 import com.example.enchanted.Repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class DefaultAdminService implements AdminService {
     private ProductRepository productRepository;
     private CustomerRepository customerRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private CatalogVersion catalogVersion;
+    private ProductCache productCache;
+    private HotInventory hotInventory;
+    private ProductImporter productImporter;
+    private StockFeedIngester stockFeedIngester;
+    private StockLevels stockLevels;
 
     @Autowired
-    public DefaultAdminService(ProductRepository productRepository, CustomerRepository customerRepository){
+    public DefaultAdminService(ProductRepository productRepository, CustomerRepository customerRepository, ApplicationEventPublisher eventPublisher, CatalogVersion catalogVersion, ProductCache productCache, HotInventory hotInventory, ProductImporter productImporter, StockFeedIngester stockFeedIngester, StockLevels stockLevels){
         this.productRepository=productRepository;
         this.customerRepository=customerRepository;
+        this.eventPublisher=eventPublisher;
+        this.catalogVersion=catalogVersion;
+        this.productCache=productCache;
+        this.hotInventory=hotInventory;
+        this.productImporter=productImporter;
+        this.stockFeedIngester=stockFeedIngester;
+        this.stockLevels=stockLevels;
     }
 
     @Override
@@ -41,26 +67,62 @@ public class DefaultAdminService implements AdminService {
         if (product==null){
             throw new EntityNotFoundException("Product with ID " + id + " not found.");
         }
+        double oldPrice = product.getPrice();
         product.setName(name);
         product.setPrice(price);
         product.setAvailableQuantity(availableQuantity);
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        catalogVersion.increment();
+        if (oldPrice != saved.getPrice()) {
+            eventPublisher.publishEvent(new ProductPriceChangedEvent(saved.getId(), oldPrice, saved.getPrice()));
+        }
+        return saved;
 
     }
 
     @Override
     public List<Product> outOfStockProducts() {
-        return productRepository.outOfStock();
+        return productsById(stockLevels.outOfStock());
     }
 
     @Override
-    public List<Customer> findAllCustomers() {
-        List<Customer> listOfCustomers = new ArrayList<>();
-        Iterable<Customer> customers = customerRepository.findAll();
-        for (Customer customer: customers){
-            listOfCustomers.add(customer);
+    public List<Product> lowStockProducts(Category category) {
+        return productsById(stockLevels.lowStock(category));
+    }
+
+    /**
+     * @return the products with the given IDs, read by primary key, in ID order
+     */
+    private List<Product> productsById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
         }
-        return listOfCustomers;
+        List<Product> products = new ArrayList<>(productRepository.findProductsByIds(ids));
+        products.sort(Comparator.comparing(Product::getId));
+        return products;
+    }
+
+    /**
+     * Reads one page of summaries, so memory per request is bounded by the limit whatever the number of customers
+     */
+    @Override
+    public Slice<CustomerSummary> findCustomers(String name, String email, Integer afterId, int limit) {
+        if (limit <= 0 || limit > DefaultCustomerService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + DefaultCustomerService.MAX_PAGE_SIZE + ".");
+        }
+        return customerRepository.findCustomerSummaries(prefix(name), prefix(email), afterId == null ? 0 : afterId,
+                PageRequest.of(0, limit));
+    }
+
+    /**
+     * @return the filter with its LIKE wildcards escaped, or null when there is nothing to filter on
+     */
+    private static String prefix(String filter) {
+        if (filter == null || filter.trim().isEmpty()) {
+            return null;
+        }
+        return filter.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
     @Override
@@ -81,17 +143,86 @@ public class DefaultAdminService implements AdminService {
         return customer;
     }
 
+    @Override
+    public ProductCacheStatistics productCacheStatistics() {
+        return productCache.statistics();
+    }
+
+    @Override
+    public void enableHotInventory(Integer id) {
+        hotInventory.enable(id);
+    }
+
+    @Override
+    public void disableHotInventory(Integer id) {
+        if (!hotInventory.isHot(id)) {
+            throw new EntityNotFoundException("Product with ID " + id + " is not in hot inventory mode.");
+        }
+        hotInventory.disable(id);
+    }
+
+    @Override
+    public Set<Integer> hotInventoryProducts() {
+        return hotInventory.hotProductIds();
+    }
+
     @Override
     public void delete(Integer id) {
         if (!productRepository.existsById(id)) {
             throw new EntityNotFoundException("Product with ID " + id + " not found.");
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+        catalogVersion.increment();
     }
 
     @Override
     public Product create(String name, Category category, String type, String color, double price, Integer availableQuantity) {
 
+        validateNewProduct(name, price, availableQuantity);
+        Product product = new Product();
+        product.setName(name);
+        product.setCategory(category);
+        product.setType(type);
+        product.setColor(color);
+        product.setPrice(price);
+        product.setAvailableQuantity(availableQuantity);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+        catalogVersion.increment();
+        return saved;
+    }
+
+    @Override
+    public ProductImportResult importCsv(InputStream input) throws IOException {
+        return imported(productImporter.importCsv(input));
+    }
+
+    @Override
+    public ProductImportResult importNdjson(InputStream input) throws IOException {
+        return imported(productImporter.importNdjson(input));
+    }
+
+    @Override
+    public StockFeedResult applyStockFeed(String fileName) throws IOException {
+        StockFeedResult result = stockFeedIngester.ingest(fileName);
+        if (result.getUpdated() > 0) {
+            eventPublisher.publishEvent(new StockFeedAppliedEvent(result.getUpdated()));
+        }
+        return result;
+    }
+
+    private ProductImportResult imported(ProductImportResult result) {
+        if (result.getImported() > 0) {
+            eventPublisher.publishEvent(new ProductsImportedEvent(result.getImported()));
+        }
+        return result;
+    }
+
+    /**
+     * Rules every new product has to satisfy, whether it is created on its own or imported
+     */
+    static void validateNewProduct(String name, double price, Integer availableQuantity) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Product name cannot be empty.");
         }
@@ -101,13 +232,5 @@ public class DefaultAdminService implements AdminService {
         if (availableQuantity < 0) {
             throw new IllegalArgumentException("Available quantity cannot be negative.");
         }
-        Product product = new Product();
-        product.setName(name);
-        product.setCategory(category);
-        product.setType(type);
-        product.setColor(color);
-        product.setPrice(price);
-        product.setAvailableQuantity(availableQuantity);
-        return productRepository.save(product);
     }
 }
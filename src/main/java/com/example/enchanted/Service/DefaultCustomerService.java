@@ -2,20 +2,41 @@ package com.example.enchanted.Service;
 
 import com.example.enchanted.Pojo.*;
 import com.example.enchanted.Repository.CartRepository;
+import com.example.enchanted.Repository.CustomerOrderRepository;
 import com.example.enchanted.Repository.CustomerRepository;
 import com.example.enchanted.Repository.ProductOrderRepository;
 import com.example.enchanted.Repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class DefaultCustomerService implements CustomerService {
 
+    public static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private ProductRepository productRepository;
     @Autowired
@@ -24,22 +45,38 @@ public class DefaultCustomerService implements CustomerService {
     private CartRepository cartRepository;
     @Autowired
     private CustomerRepository customerRepository;
+    @Autowired
+    private CustomerOrderRepository customerOrderRepository;
+    @Autowired
+    private ProductCatalog productCatalog;
+    @Autowired
+    private ProductTextIndex productTextIndex;
+    @Autowired
+    private ProductAutocomplete productAutocomplete;
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private HotInventory hotInventory;
+    @Autowired
+    private ProductChangeStream productChangeStream;
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public DefaultCustomerService(ProductRepository productRepository, ProductOrderRepository productOrderRepository, CartRepository cartRepository, CustomerRepository customerRepository) {
+    public DefaultCustomerService(ProductRepository productRepository, ProductOrderRepository productOrderRepository, CartRepository cartRepository, CustomerRepository customerRepository, CustomerOrderRepository customerOrderRepository, ProductCatalog productCatalog, ProductTextIndex productTextIndex, ProductAutocomplete productAutocomplete, CatalogVersion catalogVersion, ApplicationEventPublisher eventPublisher, HotInventory hotInventory, ProductChangeStream productChangeStream) {
         this.productRepository = productRepository;
         this.productOrderRepository=productOrderRepository;
         this.cartRepository= cartRepository;
         this.customerRepository=customerRepository;
-    }
-
-    @Override
-    public List<Product> findAll() {
-        List<Product> listOfProducts = new ArrayList<>();
-        Iterable<Product> products = productRepository.findAll();
-        for (Product product: products){
-            listOfProducts.add(product);
-        }
-        return listOfProducts;
+        this.customerOrderRepository=customerOrderRepository;
+        this.productCatalog=productCatalog;
+        this.productTextIndex=productTextIndex;
+        this.productAutocomplete=productAutocomplete;
+        this.catalogVersion=catalogVersion;
+        this.eventPublisher=eventPublisher;
+        this.hotInventory=hotInventory;
+        this.productChangeStream=productChangeStream;
     }
 
     @Override
@@ -55,84 +92,415 @@ public class DefaultCustomerService implements CustomerService {
     }
 
     @Override
-    public List<Product> findProductByCategory(Category category) {
+    public Slice<Product> findAll(Integer afterId, int limit) {
+        Pageable page = firstPage(limit);
+        if (productCatalog.isEnabled()) {
+            return productCatalog.snapshot().findAll(keyset(afterId), limit);
+        }
+        return productRepository.findProductsAfter(keyset(afterId), page);
+    }
+
+    /**
+     * Hands every product to the given action straight from a streaming cursor. Each product is detached once the
+     * action returns, so the persistence context never holds more than one row.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Product> action) {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            products.forEach(product -> {
+                action.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+
+    @Override
+    public SseEmitter subscribeToProductChanges(boolean missedChanges) {
+        return productChangeStream.subscribe(missedChanges);
+    }
+
+    @Override
+    public Slice<Product> findProductByCategory(Category category, Integer afterId, int limit) {
         if (category == null) {
             throw new IllegalArgumentException("Category cannot be null.");
         }
-        return productRepository.findProductByCategory(category);
+        Pageable page = firstPage(limit);
+        if (productCatalog.isEnabled()) {
+            return productCatalog.snapshot().findByCategory(category, keyset(afterId), limit);
+        }
+        return productRepository.findProductByCategoryAfter(category, keyset(afterId), page);
     }
 
     @Override
-    public List<Product> findProductByColor(String color) {
+    public Slice<Product> findProductByColor(String color, Integer afterId, int limit) {
         if (color == null || color.trim().isEmpty()) {
             throw new IllegalArgumentException("Color cannot be null or empty.");
         }
-        return productRepository.findProductByColor(color);
+        Pageable page = firstPage(limit);
+        if (productCatalog.isEnabled()) {
+            return productCatalog.snapshot().findByColor(color, keyset(afterId), limit);
+        }
+        return productRepository.findProductByColorAfter(color, keyset(afterId), page);
     }
 
     @Override
-    public List<Product> findProductByPrice(double price) {
+    public Slice<Product> findProductByPrice(double price, Integer afterId, int limit) {
         if (price < 0) {
             throw new IllegalArgumentException("Price cannot be negative.");
         }
-        return productRepository.findProductByPrice(price);
+        return productRepository.findProductByPriceAfter(price, keyset(afterId), firstPage(limit));
+    }
+
+    @Override
+    public Slice<Product> findProductByPriceRange(double min, double max, Category category, PriceCursor after, int limit) {
+        if (min < 0) {
+            throw new IllegalArgumentException("Price cannot be negative.");
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("Maximum price cannot be lower than minimum price.");
+        }
+        Pageable page = firstPage(limit);
+        double afterPrice = after == null ? min : after.getPrice();
+        int afterId = after == null ? 0 : after.getProductId();
+        if (productCatalog.isEnabled()) {
+            return productCatalog.snapshot().findByPriceRange(min, max, category, afterPrice, afterId, limit);
+        }
+        if (category == null) {
+            return productRepository.findProductByPriceRange(min, max, afterPrice, afterId, page);
+        }
+        return productRepository.findProductByCategoryAndPriceRange(category, min, max, afterPrice, afterId, page);
     }
 
     @Override
-    public List<Product> findProductByType(String type) {
+    public Slice<Product> findProductByType(String type, Integer afterId, int limit) {
         if (type == null || type.trim().isEmpty()) {
             throw new IllegalArgumentException("Type cannot be null or empty.");
         }
-        return productRepository.findProductByType(type);
+        Pageable page = firstPage(limit);
+        if (productCatalog.isEnabled()) {
+            return productCatalog.snapshot().findByType(type, keyset(afterId), limit);
+        }
+        return productRepository.findProductByTypeAfter(type, keyset(afterId), page);
     }
 
     @Override
-    public List<Product> findProductByCategoryAndColor(Category category, String color) {
+    public Slice<Product> findProductByCategoryAndColor(Category category, String color, Integer afterId, int limit) {
         if (category == null) {
             throw new IllegalArgumentException("Category cannot be null.");
         }
         if (color == null || color.trim().isEmpty()) {
             throw new IllegalArgumentException("Color cannot be null or empty.");
         }
-        return productRepository.findProductByCategoryAndColor(category,color);
+        Pageable page = firstPage(limit);
+        if (productCatalog.isEnabled()) {
+            return productCatalog.snapshot().findByCategoryAndColor(category, color, keyset(afterId), limit);
+        }
+        return productRepository.findProductByCategoryAndColorAfter(category, color, keyset(afterId), page);
     }
 
+    /**
+     * Faceted search is always answered from the catalog's bitmap indexes, even when the simple lookups go to the database.
+     */
     @Override
+    public ProductSearchResult search(ProductSearchInput input, Integer afterId, int limit) {
+        firstPage(limit);
+        List<PriceBand> priceFilter = new ArrayList<>();
+        for (String band : orEmpty(input.getPrice())) {
+            priceFilter.add(PriceBand.valueOf(band));
+        }
+        return productCatalog.snapshot().search(orEmpty(input.getCategory()), orEmpty(input.getColor()), orEmpty(input.getType()),
+                priceFilter, productCatalog.getPriceBands(), keyset(afterId), limit);
+    }
+
+    @Override
+    public List<Product> searchText(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search query cannot be empty.");
+        }
+        firstPage(limit);
+        return productTextIndex.search(query, limit);
+    }
+
+    @Override
+    public List<String> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new IllegalArgumentException("Prefix cannot be empty.");
+        }
+        if (limit < 1 || limit > ProductNameTrie.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + ProductNameTrie.MAX_SUGGESTIONS + ".");
+        }
+        return productAutocomplete.suggest(prefix.trim(), limit);
+    }
+
+    @Override
+    public String catalogVersion() {
+        return catalogVersion.token();
+    }
+
+    private static <T> List<T> orEmpty(List<T> values) {
+        return values == null ? Collections.emptyList() : values;
+    }
+
+    /**
+     * Keyset pages always start at offset 0; they are positioned by the last ID of the previous page instead.
+     */
+    private static Pageable firstPage(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return PageRequest.of(0, limit);
+    }
+
+    private static int keyset(Integer afterId) {
+        return afterId == null ? 0 : afterId;
+    }
+
+    @Override
+    @Transactional
     public void createOrder( Integer cartId,Product product, Integer productAmount) {
         if (productAmount <= 0) {
             throw new IllegalArgumentException("Product amount must be positive.");
         }
-        if (productAmount>product.getAvailableQuantity()){
-            throw new RuntimeException("Not enough product available");
-        }
-        Cart cart= cartRepository.findCartById(cartId);
-        if (cart == null) {
+        if (!customerOrderRepository.lockCart(cartId)) {
             throw new RuntimeException("Cart not found.");
         }
-        ProductOrder productOrder = new ProductOrder(product, productAmount);
-        productOrder.setCart(cart);
-        productOrderRepository.save(productOrder);
+        reserveStock(product.getId(), productAmount);
+        productOrderRepository.addToCartLine(cartId, product.getId(), productAmount);
+        cartRepository.addLineToPrice(cartId, product.getId(), productAmount);
     }
 
     @Override
+    @Transactional
     public void deleteProductFromCart(Integer cartId, Integer productId) {
+        if (!customerOrderRepository.lockCart(cartId)) {
+            throw new EntityNotFoundException("Cart with ID " + cartId + " not found.");
+        }
         ProductOrder productOrder=productOrderRepository.findProductByCartIdAndProductId(cartId,productId);
+        if (productOrder == null) {
+            throw new EntityNotFoundException("Product with ID " + productId + " is not in cart " + cartId + ".");
+        }
         productOrderRepository.delete(productOrder);
+        cartRepository.addLineToPrice(cartId, productId, -productOrder.getAmount());
+        releaseStock(productId, productOrder.getAmount());
     }
     //Kto teste duhen....
 
     @Override
+    @Transactional
     public ProductOrder editAmount(Integer cartId, Integer productId, Integer amount) {
+        if (!customerOrderRepository.lockCart(cartId)) {
+            return null;
+        }
         ProductOrder productOrder = productOrderRepository.findProductByCartIdAndProductId(cartId,productId);
         if (productOrder==null){
             return null;
         }
+        int difference = amount - productOrder.getAmount();
+        if (difference > 0) {
+            reserveStock(productId, difference);
+        } else if (difference < 0) {
+            releaseStock(productId, -difference);
+        }
         productOrder.setAmount(amount);
-        return productOrderRepository.save(productOrder);
+        if (difference != 0) {
+            productOrder.setReservedAt(Instant.now());
+        }
+        ProductOrder saved = productOrderRepository.save(productOrder);
+        cartRepository.addLineToPrice(cartId, productId, difference);
+        return saved;
     }
 
 
     @Override
+    @Transactional
+    public CartLinesResult addProductsToCart(Integer cartId, List<CartLineInput> lines) {
+        checkCartLines(cartId, lines);
+        CartLineResult[] results = new CartLineResult[lines.size()];
+        double delta = addLines(cartId, lines, results);
+        if (delta != 0) {
+            cartRepository.addToPrice(cartId, delta);
+        }
+        return new CartLinesResult(Arrays.asList(results), cartRepository.findPriceById(cartId));
+    }
+
+    /**
+     * Every line already in the cart is removed and its stock given back, whatever happens to the requested lines.
+     * The lines are deleted with plain SQL, so they are gone before the new ones are inserted.
+     */
+    @Override
+    @Transactional
+    public CartLinesResult replaceCart(Integer cartId, List<CartLineInput> lines) {
+        checkCartLines(cartId, lines);
+        List<ProductOrder> previous = productOrderRepository.findProductByCartId(cartId);
+        Map<Integer, Integer> released = new TreeMap<>();
+        for (ProductOrder line : previous) {
+            released.merge(line.getProduct().getId(), line.getAmount(), Integer::sum);
+        }
+        customerOrderRepository.clearCart(cartId);
+        releaseStocks(released);
+        CartLineResult[] results = new CartLineResult[lines.size()];
+        addLines(cartId, lines, results);
+        cartRepository.recalculatePrices(Collections.singletonList(cartId));
+        return new CartLinesResult(Arrays.asList(results), cartRepository.findPriceById(cartId));
+    }
+
+    /**
+     * Also locks the cart row, before any line or product row is touched.
+     */
+    private void checkCartLines(Integer cartId, List<CartLineInput> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("Lines cannot be empty.");
+        }
+        if (lines.size() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_PAGE_SIZE + " lines are allowed.");
+        }
+        if (!customerOrderRepository.lockCart(cartId)) {
+            throw new EntityNotFoundException("Cart with ID " + cartId + " not found.");
+        }
+    }
+
+    /**
+     * Validates the lines, loads their products with one IN query, reserves the stock of database products with one
+     * batch of conditional updates and writes the cart lines with one batch of upserts. A product already in the cart
+     * gets its amount raised. Both batches run in product ID order, whatever the order of the request, so two carts
+     * changing the same products lock their rows in the same order and cannot deadlock each other.
+     * @param results filled with the outcome of every line, by index
+     * @return price difference of the cart
+     */
+    private double addLines(Integer cartId, List<CartLineInput> lines, CartLineResult[] results) {
+        Map<Integer, Integer> requested = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            CartLineInput line = lines.get(i);
+            if (line == null || line.getProductId() == null || line.getAmount() == null || line.getAmount() <= 0) {
+                results[i] = CartLineResult.rejected(line == null ? null : line.getProductId(), line == null ? null : line.getAmount(), "Invalid input data.");
+            } else if (requested.putIfAbsent(line.getProductId(), i) != null) {
+                results[i] = CartLineResult.rejected(line.getProductId(), line.getAmount(), "Product is listed more than once.");
+            }
+        }
+        Map<Integer, Product> products = new HashMap<>();
+        if (!requested.isEmpty()) {
+            for (Product product : productRepository.findProductsByIds(requested.keySet())) {
+                products.put(product.getId(), product);
+            }
+        }
+
+        Map<Integer, Integer> fromDatabase = new TreeMap<>();
+        Set<Integer> reserved = new HashSet<>();
+        for (Map.Entry<Integer, Integer> entry : requested.entrySet()) {
+            Integer productId = entry.getKey();
+            int amount = lines.get(entry.getValue()).getAmount();
+            if (!products.containsKey(productId)) {
+                results[entry.getValue()] = CartLineResult.rejected(productId, amount, "Product not found.");
+            } else if (!hotInventory.isHot(productId)) {
+                fromDatabase.put(productId, amount);
+            } else if (hotInventory.reserve(productId, amount)) {
+                reserved.add(productId);
+            }
+        }
+        if (!fromDatabase.isEmpty()) {
+            Set<Integer> taken = productRepository.reserveStocks(fromDatabase);
+            for (Integer productId : taken) {
+                eventPublisher.publishEvent(new ProductStockChangedEvent(productId, -fromDatabase.get(productId)));
+            }
+            reserved.addAll(taken);
+        }
+
+        Map<Integer, Integer> added = new TreeMap<>();
+        double delta = 0;
+        for (Map.Entry<Integer, Integer> entry : requested.entrySet()) {
+            Integer productId = entry.getKey();
+            int amount = lines.get(entry.getValue()).getAmount();
+            if (results[entry.getValue()] != null) {
+                continue;
+            }
+            if (!reserved.contains(productId)) {
+                results[entry.getValue()] = CartLineResult.rejected(productId, amount, "Not enough product available");
+                continue;
+            }
+            added.put(productId, amount);
+            delta += products.get(productId).getPrice() * amount;
+            results[entry.getValue()] = CartLineResult.added(productId, amount);
+        }
+        if (!added.isEmpty()) {
+            productOrderRepository.addToCartLines(cartId, added);
+        }
+        return delta;
+    }
+
+    /**
+     * The conditional update decides on its own whether enough stock is left; the quantity on a loaded product may be stale.
+     * Products in hot inventory mode take their stock from memory instead and reach the database in the next reconcile batch.
+     */
+    private void reserveStock(Integer productId, int amount) {
+        if (hotInventory.isHot(productId)) {
+            if (!hotInventory.reserve(productId, amount)) {
+                throw new RuntimeException("Not enough product available");
+            }
+            return;
+        }
+        if (!productRepository.reserveStock(productId, amount)) {
+            throw new RuntimeException("Not enough product available");
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productId, -amount));
+    }
+
+    /**
+     * Removes the lines of a cart that took their stock before the given time and gives the stock back, the same way
+     * replacing the cart does. The cart row is locked first, so a line the customer changes meanwhile is either
+     * released whole or kept with its new hold.
+     * @return number of lines released
+     */
+    @Override
+    @Transactional
+    public int releaseExpiredLines(Integer cartId, Instant reservedBefore) {
+        if (!customerOrderRepository.lockCart(cartId)) {
+            return 0;
+        }
+        List<ProductOrder> expired = productOrderRepository.findLinesReservedBefore(cartId, reservedBefore);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, Integer> released = new TreeMap<>();
+        for (ProductOrder line : expired) {
+            released.merge(line.getProduct().getId(), line.getAmount(), Integer::sum);
+        }
+        productOrderRepository.deleteAll(expired);
+        cartRepository.recalculatePrices(Collections.singletonList(cartId));
+        releaseStocks(released);
+        return expired.size();
+    }
+
+    /**
+     * Gives back the stock of several products, the database ones with a single batch in product ID order.
+     */
+    private void releaseStocks(Map<Integer, Integer> amounts) {
+        Map<Integer, Integer> toDatabase = new TreeMap<>();
+        amounts.forEach((productId, amount) -> {
+            if (hotInventory.isHot(productId)) {
+                hotInventory.release(productId, amount);
+            } else {
+                toDatabase.put(productId, amount);
+            }
+        });
+        if (!toDatabase.isEmpty()) {
+            for (Integer productId : productRepository.applyStockDeltas(toDatabase)) {
+                eventPublisher.publishEvent(new ProductStockChangedEvent(productId, toDatabase.get(productId)));
+            }
+        }
+    }
+
+    private void releaseStock(Integer productId, int amount) {
+        if (hotInventory.isHot(productId)) {
+            hotInventory.release(productId, amount);
+            return;
+        }
+        productRepository.releaseStock(productId, amount);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productId, amount));
+    }
+
+    @Override
+    @Transactional
     public Customer registerCustomer(String name, String email, String phoneNumber, String address) {
         Cart c=new Cart();
         Cart base = cartRepository.save(c);
@@ -147,16 +515,39 @@ public class DefaultCustomerService implements CustomerService {
 
     @Override
     public List<ProductDto> viewProductsInCart(Integer cartId) {
-       return productOrderRepository.ProductsInCart(cartId).stream().map(productOrder -> new ProductDto(productOrder.getProduct())).collect(Collectors.toList());
+        return productOrderRepository.findCartLines(cartId);
     }
 
     @Override
     public Double totalPrice(Integer cartId) {
-        Cart cart =cartRepository.findCartById(cartId);
-        cart.setProductOrders(productOrderRepository.findProductByCartId(cartId));
-        return cart.getPrice();
+        Double price = cartRepository.findPriceById(cartId);
+        if (price == null) {
+            throw new EntityNotFoundException("Cart with ID " + cartId + " not found.");
+        }
+        return price;
     }
 
+    /**
+     * Stock was already taken when the lines were added to the cart, so checkout only has to turn the lines into an order.
+     * The cart row is locked first; every other statement works on all lines at once.
+     */
+    @Override
+    @Transactional
+    public CustomerOrder checkout(Integer cartId) {
+        if (!customerOrderRepository.lockCart(cartId)) {
+            throw new EntityNotFoundException("Cart with ID " + cartId + " not found.");
+        }
+        if (productOrderRepository.countByCartId(cartId) == 0) {
+            throw new IllegalArgumentException("Cart is empty.");
+        }
+        double total = productOrderRepository.sumLinePrices(cartId);
+        CustomerOrder order = customerOrderRepository.save(new CustomerOrder(cartId, total, Instant.now()));
+        customerOrderRepository.copyCartLines(order.getId(), cartId);
+        customerOrderRepository.clearCart(cartId);
+        return order.withLines(customerOrderRepository.findLinesByOrderId(order.getId()));
+    }
+
+
 
 }
 
@@ -0,0 +1,201 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.PriceBand;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductCursor;
+import com.example.enchanted.Pojo.ProductSearchResult;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compressed bitmap indexes over a catalog snapshot, one bitmap per category, color and type.
+ * Bit i stands for the i-th product in ID order, so a search is a handful of bitmap ORs and ANDs
+ * and facet counts are intersection cardinalities that never materialize the matching products.
+ */
+final class FacetIndex {
+
+    /**
+     * Bitmaps of arbitrary price bands are not kept once this many are cached
+     */
+    private static final int MAX_CACHED_BANDS = 64;
+
+    private final Product[] products;
+    private final int[] ids;
+    private final RoaringBitmap all;
+    private final Map<Category, RoaringBitmap> categories;
+    private final Map<String, RoaringBitmap> colors;
+    private final Map<String, RoaringBitmap> types;
+    private final PriceIndex prices;
+    private final ConcurrentMap<PriceBand, RoaringBitmap> bands;
+
+    FacetIndex(Product[] products, PriceIndex prices) {
+        this.products = products;
+        this.prices = prices;
+        this.all = new RoaringBitmap();
+        this.categories = new EnumMap<>(Category.class);
+        this.colors = new HashMap<>();
+        this.types = new HashMap<>();
+        this.bands = new ConcurrentHashMap<>();
+        this.ids = new int[products.length];
+        for (int i = 0; i < products.length; i++) {
+            Product product = products[i];
+            ids[i] = product.getId();
+            if (product.getCategory() != null) {
+                categories.computeIfAbsent(product.getCategory(), key -> new RoaringBitmap()).add(i);
+            }
+            if (product.getColor() != null) {
+                colors.computeIfAbsent(CatalogSnapshot.key(product.getColor()), key -> new RoaringBitmap()).add(i);
+            }
+            if (product.getType() != null) {
+                types.computeIfAbsent(CatalogSnapshot.key(product.getType()), key -> new RoaringBitmap()).add(i);
+            }
+        }
+        all.add(0L, (long) products.length);
+        categories.values().forEach(RoaringBitmap::runOptimize);
+        colors.values().forEach(RoaringBitmap::runOptimize);
+        types.values().forEach(RoaringBitmap::runOptimize);
+    }
+
+    private FacetIndex(FacetIndex source, Product[] products, PriceIndex prices) {
+        this.products = products;
+        this.prices = prices;
+        this.ids = source.ids;
+        this.all = source.all;
+        this.categories = source.categories;
+        this.colors = source.colors;
+        this.types = source.types;
+        this.bands = source.bands;
+    }
+
+    /**
+     * The bitmaps only depend on the position, category, color, type and price of every product, so an index over
+     * the same products with other stock shares them, price band bitmaps included.
+     * @param products the products of this index in the same order, differing in available quantity only
+     * @param prices price index over the same products
+     */
+    FacetIndex withProducts(Product[] products, PriceIndex prices) {
+        return new FacetIndex(this, products, prices);
+    }
+
+    /**
+     * @param categoryFilter selected categories, empty for no filter
+     * @param colorFilter selected color keys, empty for no filter
+     * @param typeFilter selected type keys, empty for no filter
+     * @param priceFilter selected price bands, empty for no filter
+     * @param priceFacets price bands to report counts for
+     * @param afterId ID of the last product of the previous page, or 0 for the first page
+     * @param limit maximum number of products in the page
+     */
+    ProductSearchResult search(Set<Category> categoryFilter, Set<String> colorFilter, Set<String> typeFilter,
+                               List<PriceBand> priceFilter, List<PriceBand> priceFacets, int afterId, int limit) {
+        RoaringBitmap byCategory = categoryFilter.isEmpty() ? null : union(categoryFilter, categories);
+        RoaringBitmap byColor = colorFilter.isEmpty() ? null : union(colorFilter, colors);
+        RoaringBitmap byType = typeFilter.isEmpty() ? null : union(typeFilter, types);
+        RoaringBitmap byPrice = null;
+        if (!priceFilter.isEmpty()) {
+            List<RoaringBitmap> selected = new ArrayList<>(priceFilter.size());
+            for (PriceBand band : priceFilter) {
+                selected.add(band(band));
+            }
+            byPrice = or(selected);
+        }
+
+        RoaringBitmap matches = intersect(byCategory, byColor, byType, byPrice);
+        List<Product> content = new ArrayList<>(Math.min(limit, matches.getCardinality()));
+        PeekableIntIterator positions = matches.getIntIterator();
+        positions.advanceIfNeeded(firstAfter(afterId));
+        while (positions.hasNext() && content.size() < limit) {
+            content.add(products[positions.next()]);
+        }
+        String nextCursor = positions.hasNext() && !content.isEmpty()
+                ? ProductCursor.encode(content.get(content.size() - 1).getId()) : null;
+
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("category", counts(categories, intersect(byColor, byType, byPrice)));
+        facets.put("color", counts(colors, intersect(byCategory, byType, byPrice)));
+        facets.put("type", counts(types, intersect(byCategory, byColor, byPrice)));
+        Map<String, Integer> priceCounts = new LinkedHashMap<>();
+        RoaringBitmap priceBase = intersect(byCategory, byColor, byType);
+        for (PriceBand band : priceFacets) {
+            priceCounts.put(band.toString(), RoaringBitmap.andCardinality(priceBase, band(band)));
+        }
+        facets.put("price", priceCounts);
+
+        return new ProductSearchResult(content, matches.getCardinality(), nextCursor, facets);
+    }
+
+    private RoaringBitmap band(PriceBand band) {
+        RoaringBitmap cached = bands.get(band);
+        if (cached != null) {
+            return cached;
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int id : prices.idsIn(band.getMin(), band.getMax())) {
+            bitmap.add(position(id));
+        }
+        bitmap.runOptimize();
+        if (bands.size() < MAX_CACHED_BANDS) {
+            bands.putIfAbsent(band, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static <K> RoaringBitmap union(Set<K> keys, Map<K, RoaringBitmap> index) {
+        List<RoaringBitmap> selected = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            RoaringBitmap bitmap = index.get(key);
+            if (bitmap != null) {
+                selected.add(bitmap);
+            }
+        }
+        return or(selected);
+    }
+
+    private static RoaringBitmap or(List<RoaringBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) {
+            return new RoaringBitmap();
+        }
+        if (bitmaps.size() == 1) {
+            return bitmaps.get(0);
+        }
+        return RoaringBitmap.or(bitmaps.iterator());
+    }
+
+    /**
+     * ANDs the given filters; null stands for "no filter". The shared index bitmaps are never modified.
+     */
+    private RoaringBitmap intersect(RoaringBitmap... filters) {
+        RoaringBitmap result = null;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = result == null ? filter : RoaringBitmap.and(result, filter);
+            }
+        }
+        return result == null ? all : result;
+    }
+
+    private static <K> Map<String, Integer> counts(Map<K, RoaringBitmap> index, RoaringBitmap base) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<K, RoaringBitmap> entry : index.entrySet()) {
+            int count = RoaringBitmap.andCardinality(base, entry.getValue());
+            if (count > 0) {
+                counts.put(entry.getKey().toString(), count);
+            }
+        }
+        return counts;
+    }
+
+    private int position(int id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    private int firstAfter(int afterId) {
+        int position = Arrays.binarySearch(ids, afterId);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Flash-sale mode for products whose single row would otherwise be updated by every add to cart.
+ * While a product is hot this instance leases its stock from the product table in blocks: each lease is one
+ * conditional UPDATE that takes the units from the row in a transaction of its own, so the row only ever holds the
+ * stock no instance has leased and several instances can run the mode for the same product without overselling.
+ * The leased units are split over striped counters that are taken from with compare-and-set, so concurrent orders
+ * neither lock the row nor contend on one counter. Every unit is a token held by one of the stripes; an order takes
+ * its tokens from the stripe of its thread first, gathers from the others when that stripe runs short and leases
+ * the next block when all of them do. Disabling the mode gives the unused tokens back to the row.
+ * <p>
+ * Leases only move units between the row and this instance, so they are not published as stock changes: the
+ * published changes are the units orders take and give back, and {@link ProductCatalog} and {@link StockLevels}
+ * count the leased units of a hot product as available. They add {@link #leased(Integer)} to the row when they
+ * load it again.
+ */
+@Component
+public class HotInventory {
+
+    /**
+     * Distance between two stripes in the counter array, so each stripe sits on its own cache line
+     */
+    private static final int PADDING = 16;
+
+    /**
+     * Leases tried when the row changes between reading what is left and taking it
+     */
+    private static final int LEASE_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int stripes;
+    private final int leaseSize;
+    private final ConcurrentMap<Integer, HotStock> stocks = new ConcurrentHashMap<>();
+    private final List<HotStock> retired = new ArrayList<>();
+
+    public HotInventory(ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                        @Value("${inventory.hot.stripes:0}") int stripes,
+                        @Value("${inventory.hot.lease-size:100}") int leaseSize) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.leaseSize = Math.max(leaseSize, 1);
+    }
+
+    /**
+     * @param productId
+     * @return true while the stock of the product is held in memory
+     */
+    public boolean isHot(Integer productId) {
+        return stocks.containsKey(productId);
+    }
+
+    /**
+     * @return ids of the products currently in hot inventory mode
+     */
+    public Set<Integer> hotProductIds() {
+        return Collections.unmodifiableSet(new TreeSet<>(stocks.keySet()));
+    }
+
+    /**
+     * @param productId
+     * @return units of the product leased to this instance and not taken by an order, 0 when it is not hot
+     */
+    public int leased(Integer productId) {
+        HotStock stock = stocks.get(productId);
+        return stock == null ? 0 : stock.total();
+    }
+
+    /**
+     * Moves the stock of a product into memory and leases its first block from the product table
+     * @param productId
+     */
+    public synchronized void enable(Integer productId) {
+        if (stocks.containsKey(productId)) {
+            return;
+        }
+        if (productRepository.findAvailableQuantity(productId) == null) {
+            throw new EntityNotFoundException("Product with ID " + productId + " not found.");
+        }
+        HotStock stock = new HotStock(productId, stripes);
+        stocks.put(productId, stock);
+        synchronized (stock) {
+            stock.fill(lease(stock, 0));
+        }
+    }
+
+    /**
+     * Gives the unused tokens of a product back to the product table and returns its stock to the database.
+     * The counters are drained once more on the next runs of {@link #reconcile()}, for orders that were already
+     * taking from them.
+     * @param productId
+     */
+    public synchronized void disable(Integer productId) {
+        HotStock stock = stocks.remove(productId);
+        if (stock != null) {
+            retired.add(stock);
+            giveBack(stock);
+            publish(stock);
+        }
+    }
+
+    /**
+     * Takes stock for an order. When the surrounding transaction rolls back the tokens are handed back.
+     * @param productId
+     * @param amount units to take, positive
+     * @return true when the stock was reserved, false when not enough was available
+     */
+    public boolean reserve(Integer productId, int amount) {
+        HotStock stock = stocks.get(productId);
+        if (stock == null) {
+            return reserveInDatabase(productId, amount);
+        }
+        if (!stock.take(amount) && !refill(stock, amount)) {
+            return false;
+        }
+        stock.unpublished.addAndGet(-amount);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        stock.give(amount);
+                        stock.unpublished.addAndGet(amount);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Gives previously reserved units back
+     * @param productId
+     * @param amount units to give back, positive
+     */
+    public void release(Integer productId, int amount) {
+        HotStock stock = stocks.get(productId);
+        if (stock == null) {
+            productRepository.releaseStock(productId, amount);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(productId, amount));
+            return;
+        }
+        stock.give(amount);
+        stock.unpublished.addAndGet(amount);
+    }
+
+    /**
+     * Publishes the net units orders took and gave back since the last run, and gives back to the product table
+     * the tokens that orders still returned to products that are no longer hot.
+     * A rollback hands its tokens back after the order's transaction, so the change is published here rather than
+     * tied to its outcome.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot.reconcile-interval-ms:500}")
+    public synchronized void reconcile() {
+        for (HotStock stock : retired) {
+            giveBack(stock);
+        }
+        for (HotStock stock : stocks.values()) {
+            publish(stock);
+        }
+        for (HotStock stock : retired) {
+            publish(stock);
+        }
+        retired.removeIf(stock -> ++stock.reconciledAfterRetiring >= 2);
+    }
+
+    /**
+     * An edit from the admin sets the available quantity of the row outright. The admin sees the leased units as
+     * available, so the new quantity replaces them: they are dropped rather than given back, and the next order
+     * leases again from the new quantity. The replaced counters are retired like on {@link #disable(Integer)},
+     * so an order that took from them before the edit and rolls back afterwards gives its units back to the row,
+     * as a rollback of a database reservation would. Units released later for lines added before the edit are
+     * added back the same way, on top of the new quantity.
+     */
+    @EventListener
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Integer productId = event.getProductId();
+        HotStock replaced = stocks.get(productId);
+        if (replaced == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            stocks.remove(productId);
+        } else {
+            stocks.put(productId, new HotStock(productId, stripes));
+        }
+        synchronized (replaced) {
+            replaced.drain();
+            replaced.unpublished.set(0);
+        }
+        retired.add(replaced);
+    }
+
+    /**
+     * Leases what the counters are missing for the order and takes it again. Only one order of a product leases
+     * at a time; the others wait and then find the new tokens in the counters.
+     */
+    private boolean refill(HotStock stock, int amount) {
+        synchronized (stock) {
+            if (stock.take(amount)) {
+                return true;
+            }
+            if (stocks.get(stock.productId) != stock) {
+                return false;
+            }
+            int leased = lease(stock, Math.max(amount - stock.total(), 1));
+            if (leased == 0) {
+                return false;
+            }
+            stock.fill(leased);
+            return stock.take(amount);
+        }
+    }
+
+    /**
+     * Takes a block of at least the wanted units from the product table, or whatever is left when that is less
+     * than a block but still enough
+     * @return units leased, 0 when fewer than the wanted units are left
+     */
+    private int lease(HotStock stock, int wanted) {
+        int amount = Math.max(wanted, leaseSize);
+        for (int attempt = 0; attempt < LEASE_ATTEMPTS; attempt++) {
+            if (amount > 0 && productRepository.leaseStock(stock.productId, amount)) {
+                return amount;
+            }
+            Integer left = productRepository.findAvailableQuantity(stock.productId);
+            if (left == null || left <= 0 || left < wanted) {
+                return 0;
+            }
+            amount = Math.min(left, amount);
+        }
+        return 0;
+    }
+
+    /**
+     * Drains every counter of the stock and adds the tokens back to the product table
+     */
+    private void giveBack(HotStock stock) {
+        int tokens = stock.drain();
+        if (tokens == 0) {
+            return;
+        }
+        try {
+            productRepository.applyStockDeltas(Collections.singletonMap(stock.productId, tokens));
+        } catch (RuntimeException e) {
+            stock.give(tokens);
+            throw e;
+        }
+    }
+
+    private void publish(HotStock stock) {
+        int delta = stock.unpublished.getAndSet(0);
+        if (delta != 0) {
+            eventPublisher.publishEvent(new ProductStockChangedEvent(stock.productId, delta));
+        }
+    }
+
+    /**
+     * Only reached when the product stopped being hot between the caller's check and the reservation
+     */
+    private boolean reserveInDatabase(Integer productId, int amount) {
+        if (!productRepository.reserveStock(productId, amount)) {
+            return false;
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productId, -amount));
+        return true;
+    }
+
+    private static final class HotStock {
+
+        private final Integer productId;
+        private final int stripes;
+        private final AtomicIntegerArray available;
+        /** Net units taken and given back by orders that have not been published yet */
+        private final AtomicInteger unpublished = new AtomicInteger();
+        private int reconciledAfterRetiring;
+
+        HotStock(Integer productId, int stripes) {
+            this.productId = productId;
+            this.stripes = stripes;
+            this.available = new AtomicIntegerArray(stripes * PADDING);
+        }
+
+        boolean take(int amount) {
+            int home = home();
+            for (int i = 0; i < stripes; i++) {
+                int slot = ((home + i) % stripes) * PADDING;
+                int current;
+                while ((current = available.get(slot)) >= amount) {
+                    if (available.compareAndSet(slot, current, current - amount)) {
+                        return true;
+                    }
+                }
+            }
+            return gather(home, amount);
+        }
+
+        /**
+         * No single stripe holds enough, so the tokens are collected from several and all given back when they fall short
+         */
+        private boolean gather(int home, int amount) {
+            int[] taken = new int[stripes];
+            int total = 0;
+            for (int i = 0; i < stripes && total < amount; i++) {
+                int stripe = (home + i) % stripes;
+                int slot = stripe * PADDING;
+                int current;
+                while ((current = available.get(slot)) > 0) {
+                    int part = Math.min(current, amount - total);
+                    if (available.compareAndSet(slot, current, current - part)) {
+                        taken[stripe] = part;
+                        total += part;
+                        break;
+                    }
+                }
+            }
+            if (total == amount) {
+                return true;
+            }
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    available.addAndGet(stripe * PADDING, taken[stripe]);
+                }
+            }
+            return false;
+        }
+
+        void give(int amount) {
+            available.addAndGet(home() * PADDING, amount);
+        }
+
+        /**
+         * Spreads newly leased tokens evenly over the stripes
+         */
+        void fill(int tokens) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                int share = tokens / stripes + (stripe < tokens % stripes ? 1 : 0);
+                if (share > 0) {
+                    available.addAndGet(stripe * PADDING, share);
+                }
+            }
+        }
+
+        int total() {
+            int total = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                total += available.get(stripe * PADDING);
+            }
+            return total;
+        }
+
+        /**
+         * Empties every stripe at once
+         * @return tokens taken
+         */
+        int drain() {
+            int total = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                total += available.getAndSet(stripe * PADDING, 0);
+            }
+            return total;
+        }
+
+        private int home() {
+            return (int) (Thread.currentThread().getId() % stripes);
+        }
+    }
+}
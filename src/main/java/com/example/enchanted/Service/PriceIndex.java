@@ -0,0 +1,127 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Product;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Products sorted by (price, ID) in parallel arrays. A range lookup is two binary searches followed by a
+ * sequential read of the matches, O(log n + k).
+ */
+final class PriceIndex {
+
+    private static final PriceIndex EMPTY = new PriceIndex(new Product[0]);
+
+    private final double[] prices;
+    private final int[] ids;
+    private final Product[] products;
+
+    private PriceIndex(Product[] sorted) {
+        this.products = sorted;
+        this.prices = new double[sorted.length];
+        this.ids = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            prices[i] = sorted[i].getPrice();
+            ids[i] = sorted[i].getId();
+        }
+    }
+
+    private PriceIndex(Product[] products, double[] prices, int[] ids) {
+        this.products = products;
+        this.prices = prices;
+        this.ids = ids;
+    }
+
+    static PriceIndex empty() {
+        return EMPTY;
+    }
+
+    static PriceIndex of(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return EMPTY;
+        }
+        Product[] sorted = products.toArray(new Product[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(Product::getPrice).thenComparing(Product::getId));
+        return new PriceIndex(sorted);
+    }
+
+    /**
+     * @param changed new versions of products in this index with the same price
+     * @return index holding the given products in place of their former versions, sharing the price and ID arrays
+     */
+    PriceIndex withReplaced(Collection<Product> changed) {
+        Product[] patched = products.clone();
+        for (Product product : changed) {
+            patched[firstAfter(product.getPrice(), product.getId() - 1)] = product;
+        }
+        return new PriceIndex(patched, prices, ids);
+    }
+
+    int size() {
+        return products.length;
+    }
+
+    /**
+     * @param min lowest price, inclusive
+     * @param max highest price, inclusive
+     * @param afterPrice price of the last product of the previous page
+     * @param afterId ID of the last product of the previous page
+     * @param limit maximum number of products in the page
+     * @return products priced between min and max that come after (afterPrice, afterId), cheapest first
+     */
+    Slice<Product> between(double min, double max, double afterPrice, int afterId, int limit) {
+        int i = Math.max(firstAtLeast(min), firstAfter(afterPrice, afterId));
+        List<Product> content = new ArrayList<>(Math.min(limit, products.length - Math.min(i, products.length)));
+        while (i < products.length && prices[i] <= max && content.size() < limit) {
+            content.add(products[i++]);
+        }
+        boolean hasNext = i < products.length && prices[i] <= max;
+        return new SliceImpl<>(content, PageRequest.of(0, limit), hasNext);
+    }
+
+    /**
+     * @param min lowest price, inclusive
+     * @param max highest price, exclusive
+     * @return IDs of the products priced in [min, max), cheapest first
+     */
+    int[] idsIn(double min, double max) {
+        int from = firstAtLeast(min);
+        int to = max == Double.POSITIVE_INFINITY ? products.length : firstAtLeast(max);
+        return Arrays.copyOfRange(ids, from, Math.max(from, to));
+    }
+
+    private int firstAtLeast(double price) {
+        int low = 0;
+        int high = products.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstAfter(double price, int id) {
+        int low = 0;
+        int high = products.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price || (prices[mid] == price && ids[mid] <= id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Product;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Typeahead over product names. Suggestions come from an immutable {@link ProductNameTrie} built from the
+ * catalog snapshot; it is rebuilt and swapped in only when a product name is added, renamed or removed.
+ */
+@Component
+public class ProductAutocomplete {
+
+    private final ProductCatalog productCatalog;
+    private final Object writeLock = new Object();
+    private final Map<Integer, String> indexedNames = new HashMap<>();
+    private volatile ProductNameTrie trie;
+
+    public ProductAutocomplete(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+    }
+
+    /**
+     * @param prefix typed text
+     * @param limit maximum number of suggestions
+     * @return product names with a word starting with the prefix, best first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        ProductNameTrie current = trie;
+        if (current == null) {
+            synchronized (writeLock) {
+                current = trie != null ? trie : rebuild();
+            }
+        }
+        return current.suggest(prefix, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (trie == null) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            if (trie == null) {
+                return;
+            }
+            String name = event.isDeleted() ? null : event.getProduct().getName();
+            if (!Objects.equals(indexedNames.get(event.getProductId()), name)) {
+                rebuild();
+            }
+        }
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        synchronized (writeLock) {
+            if (trie != null) {
+                rebuild();
+            }
+        }
+    }
+
+    private ProductNameTrie rebuild() {
+        synchronized (writeLock) {
+            List<Product> products = productCatalog.snapshot().findAll();
+            indexedNames.clear();
+            for (Product product : products) {
+                indexedNames.put(product.getId(), product.getName());
+            }
+            trie = ProductNameTrie.build(products);
+            return trie;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductCacheStatistics;
+import com.example.enchanted.Repository.ProductRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the Product second-level cache in line with admin writes and stock changes, and reports its statistics.
+ * Only the written product is evicted; cached finder results are invalidated by Hibernate itself,
+ * which tracks when the product table was last written through it. Imports and stock feeds write with plain SQL,
+ * which Hibernate does not track, so they drop the finder results as well.
+ */
+@Component
+public class ProductCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProductCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    /**
+     * Stock is written with plain SQL, which Hibernate does not see, so the cached product is dropped once the change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    /**
+     * A stock feed updates products with plain SQL too, without naming them, so every cached product is dropped
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockFeedApplied(StockFeedAppliedEvent event) {
+        evictAll();
+    }
+
+    /**
+     * Imported products are inserted with plain SQL, so the cached finder results would go on missing them
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        evictAll();
+    }
+
+    private void evictAll() {
+        entityManagerFactory.getCache().evict(Product.class);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(ProductRepository.QUERY_CACHE_REGION);
+        evictions.incrementAndGet();
+    }
+
+    private void evict(Integer productId) {
+        entityManagerFactory.getCache().evict(Product.class, productId);
+        evictions.incrementAndGet();
+    }
+
+    public ProductCacheStatistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CacheRegionStatistics entities = statistics.getDomainDataRegionStatistics(Product.CACHE_REGION);
+        CacheRegionStatistics queries = statistics.getQueryRegionStatistics(ProductRepository.QUERY_CACHE_REGION);
+        return new ProductCacheStatistics(
+                entities == null ? 0 : entities.getHitCount(),
+                entities == null ? 0 : entities.getMissCount(),
+                entities == null ? 0 : entities.getPutCount(),
+                evictions.get(),
+                entities == null ? -1 : entities.getElementCountInMemory(),
+                queries == null ? 0 : queries.getHitCount(),
+                queries == null ? 0 : queries.getMissCount(),
+                queries == null ? 0 : queries.getPutCount());
+    }
+}
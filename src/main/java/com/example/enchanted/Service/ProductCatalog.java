@@ -0,0 +1,200 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.PriceBand;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process copy of the product catalog used to answer browse queries without a database round trip.
+ * Readers always get a complete, immutable {@link CatalogSnapshot}; writers build a new snapshot and swap it in,
+ * so a reader never blocks and never observes a half-applied change.
+ */
+@Component
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final List<PriceBand> priceBands;
+    private final CatalogVersion catalogVersion;
+    private final HotInventory hotInventory;
+    private final Object writeLock = new Object();
+    private final ConcurrentMap<Integer, Integer> pendingStock = new ConcurrentHashMap<>();
+    private volatile CatalogSnapshot snapshot;
+
+    public ProductCatalog(ProductRepository productRepository, CatalogVersion catalogVersion, HotInventory hotInventory,
+                          @Value("${catalog.in-memory.enabled:true}") boolean enabled,
+                          @Value("${catalog.facets.price-bands:0-100,100-250,250-500,500-1000,1000-}") String priceBands) {
+        this.productRepository = productRepository;
+        this.catalogVersion = catalogVersion;
+        this.hotInventory = hotInventory;
+        this.enabled = enabled;
+        List<PriceBand> bands = new ArrayList<>();
+        for (String band : priceBands.split(",")) {
+            if (!band.trim().isEmpty()) {
+                bands.add(PriceBand.valueOf(band));
+            }
+        }
+        this.priceBands = Collections.unmodifiableList(bands);
+    }
+
+    /**
+     * @return false when browse queries should go straight to the database instead
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return price bands that faceted search reports counts for
+     */
+    public List<PriceBand> getPriceBands() {
+        return priceBands;
+    }
+
+    /**
+     * @return the current catalog snapshot, loading it from the database on first use
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                pendingStock.clear();
+                snapshot = load();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Discards the current snapshot and loads a fresh one from the database
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            pendingStock.clear();
+            snapshot = load();
+        }
+    }
+
+    /**
+     * The row of a hot product lacks the units leased to {@link HotInventory}, which orders can still take
+     */
+    private CatalogSnapshot load() {
+        List<Product> products = new ArrayList<>(productRepository.findAll());
+        if (!hotInventory.hotProductIds().isEmpty()) {
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                int leased = hotInventory.leased(product.getId());
+                if (leased > 0) {
+                    int quantity = product.getAvailableQuantity() == null ? 0 : product.getAvailableQuantity();
+                    products.set(i, new Product(product.getId(), product.getName(), product.getCategory(), product.getType(),
+                            product.getColor(), product.getPrice(), quantity + leased));
+                }
+            }
+        }
+        return CatalogSnapshot.of(products);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Runs before any other listener, so views derived from the snapshot already see the change.
+     * The admin sets an absolute quantity, so order changes collected for the product before are dropped
+     * instead of being applied on top of it by the next {@link #flushStock()}.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            pendingStock.remove(event.getProductId());
+            if (snapshot == null) {
+                return;
+            }
+            snapshot = event.isDeleted() ? snapshot.without(event.getProductId()) : snapshot.with(event.getProduct());
+        }
+    }
+
+    /**
+     * A bulk import adds too many products to apply one by one, so the snapshot is loaded again
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (snapshot != null) {
+            reload();
+        }
+    }
+
+    /**
+     * A stock feed rewrote the quantities of products it does not name, so the snapshot is loaded again
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStockFeedApplied(StockFeedAppliedEvent event) {
+        if (snapshot != null) {
+            reload();
+        }
+    }
+
+    /**
+     * Orders change stock far more often than the snapshot can be rebuilt, so committed changes are only
+     * collected here and applied together by {@link #flushStock()}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (snapshot != null) {
+            pendingStock.merge(event.getProductId(), event.getDelta(), Integer::sum);
+        }
+    }
+
+    /**
+     * Applies the collected stock changes in one new snapshot. Only the entries of the changed products are
+     * replaced, the indexes are shared with the current snapshot.
+     */
+    @Scheduled(fixedDelayString = "${catalog.stock.flush-interval-ms:1000}")
+    public void flushStock() {
+        if (pendingStock.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                pendingStock.clear();
+                return;
+            }
+            List<Product> changed = new ArrayList<>();
+            for (Integer productId : new ArrayList<>(pendingStock.keySet())) {
+                Integer delta = pendingStock.remove(productId);
+                Product product = snapshot.findById(productId);
+                if (product != null && delta != null && delta != 0) {
+                    changed.add(new Product(product.getId(), product.getName(), product.getCategory(), product.getType(),
+                            product.getColor(), product.getPrice(), product.getAvailableQuantity() + delta));
+                }
+            }
+            if (!changed.isEmpty()) {
+                snapshot = snapshot.withStock(changed);
+                catalogVersion.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.ProductChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes product changes to Server-Sent Events subscribers. Every subscriber has a bounded buffer: publishing only
+ * offers the change to the buffers and returns, and a small pool of sender threads writes them to the connections.
+ * A subscriber whose buffer is full has fallen too far behind to catch up change by change, so its buffer is
+ * dropped and it is sent a single {@value #RESYNC} event telling it to read the products again.
+ */
+@Component
+public class ProductChangeStream {
+
+    /**
+     * Event name of a product change, its data is a {@link ProductChange}
+     */
+    public static final String CHANGE = "change";
+
+    /**
+     * Event name telling the subscriber that it missed changes and has to read the products again
+     */
+    public static final String RESYNC = "resync";
+
+    private final StockLevels stockLevels;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ProductChangeStream(StockLevels stockLevels,
+                               @Value("${products.changes.buffer-size:256}") int bufferSize,
+                               @Value("${products.changes.timeout-ms:1800000}") long timeoutMillis,
+                               @Value("${products.changes.sender-threads:4}") int senderThreads) {
+        this.stockLevels = stockLevels;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-changes-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param missedChanges true when the client reconnects after losing its connection; changes are not kept,
+     *                      so it is sent a {@value #RESYNC} event first
+     * @return emitter of the new subscriber
+     */
+    public SseEmitter subscribe(boolean missedChanges) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (missedChanges) {
+            subscriber.resync();
+        }
+        return emitter;
+    }
+
+    /**
+     * @return number of open subscriptions
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        publish(event.isDeleted() ? ProductChange.deleted(event.getProductId()) : ProductChange.saved(event.getProduct()));
+    }
+
+    /**
+     * Runs after {@link StockLevels} has applied the change, so the quantity read from it is the new one
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Integer quantity = stockLevels.quantity(event.getProductId());
+        if (quantity != null) {
+            publish(ProductChange.stock(event.getProductId(), quantity));
+        }
+    }
+
+    /**
+     * An import adds too many products to push one by one
+     */
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        subscribers.forEach(Subscriber::resync);
+    }
+
+    /**
+     * A stock feed changes too many quantities to push one by one
+     */
+    @EventListener
+    public void onStockFeedApplied(StockFeedAppliedEvent event) {
+        subscribers.forEach(Subscriber::resync);
+    }
+
+    /**
+     * Writes a comment to every subscriber that has nothing queued, so idle connections that were closed on the
+     * other side are noticed and dropped
+     */
+    @Scheduled(fixedDelayString = "${products.changes.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void publish(ProductChange change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Outgoing outgoing = new Outgoing(sequence.incrementAndGet(), change);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(outgoing);
+        }
+    }
+
+    private static final class Outgoing {
+        private final long id;
+        private final ProductChange change;
+
+        Outgoing(long id, ProductChange change) {
+            this.id = id;
+            this.change = change;
+        }
+    }
+
+    /**
+     * One connection. At most one sender thread works on it at a time, so its events are written in order.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Outgoing> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean resync = new AtomicBoolean();
+        private final AtomicBoolean heartbeat = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Outgoing outgoing) {
+            if (!buffer.offer(outgoing)) {
+                buffer.clear();
+                resync.set(true);
+            }
+            schedule();
+        }
+
+        void resync() {
+            buffer.clear();
+            resync.set(true);
+            schedule();
+        }
+
+        void heartbeat() {
+            if (buffer.isEmpty()) {
+                heartbeat.set(true);
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        private boolean pending() {
+            return !buffer.isEmpty() || resync.get() || heartbeat.get();
+        }
+
+        @Override
+        public void run() {
+            try {
+                send();
+            } catch (IOException | IllegalStateException e) {
+                // the connection is closed or completed, nothing more can be written to it
+                subscribers.remove(this);
+                return;
+            }
+            scheduled.set(false);
+            if (pending()) {
+                schedule();
+            }
+        }
+
+        private void send() throws IOException {
+            if (heartbeat.getAndSet(false)) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            Outgoing outgoing;
+            while (true) {
+                if (resync.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().id(Long.toString(sequence.get())).name(RESYNC).data(""));
+                }
+                outgoing = buffer.poll();
+                if (outgoing == null) {
+                    return;
+                }
+                emitter.send(SseEmitter.event().id(Long.toString(outgoing.id)).name(CHANGE)
+                        .data(outgoing.change, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Product;
+
+/**
+ * Published whenever a product is created, edited or deleted, so that in-memory views of the catalog
+ * can be brought up to date without going back to the database.
+ */
+public class ProductChangedEvent {
+
+    private final Integer productId;
+    private final Product product;
+
+    private ProductChangedEvent(Integer productId, Product product) {
+        this.productId = productId;
+        this.product = product;
+    }
+
+    /**
+     * @param product the product as it was saved
+     * @return event carrying a copy of the saved product
+     */
+    public static ProductChangedEvent saved(Product product) {
+        Product copy = new Product(product.getId(), product.getName(), product.getCategory(), product.getType(),
+                product.getColor(), product.getPrice(), product.getAvailableQuantity());
+        return new ProductChangedEvent(product.getId(), copy);
+    }
+
+    /**
+     * @param productId ID of the deleted product
+     * @return event marking the product as removed
+     */
+    public static ProductChangedEvent deleted(Integer productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    /**
+     * @return the saved product, or null when the product was deleted
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
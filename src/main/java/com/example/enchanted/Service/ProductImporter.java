@@ -0,0 +1,277 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductImportError;
+import com.example.enchanted.Pojo.ProductImportResult;
+import com.example.enchanted.Pojo.ProductImportRow;
+import com.example.enchanted.Repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads products from a CSV or newline-delimited JSON upload one line at a time and writes them in JDBC batches,
+ * so memory use depends on the batch size and not on the size of the file. A line that cannot be parsed or
+ * breaks the rules of {@link DefaultAdminService#create} is reported and skipped; the rest of the file is still imported.
+ */
+@Component
+public class ProductImporter {
+
+    private static final String[] CSV_COLUMNS = {"name", "category", "type", "color", "price", "availableQuantity"};
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImporter(ProductRepository productRepository, ObjectMapper objectMapper,
+                           @Value("${products.import.batch-size:1000}") int batchSize,
+                           @Value("${products.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * The first line is a header naming the columns name, category, type, color, price and availableQuantity
+     * in any order; other columns are ignored. Fields may be quoted, but a quoted field cannot span lines.
+     * @param input CSV file
+     * @return imported and rejected counts with the rejected lines
+     */
+    public ProductImportResult importCsv(InputStream input) throws IOException {
+        BufferedReader reader = reader(input);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Import file is empty.");
+        }
+        int[] columns = columns(parseCsvLine(header.startsWith("\uFEFF") ? header.substring(1) : header));
+        Run run = new Run();
+        long lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                List<String> fields = parseCsvLine(line);
+                if (fields.size() <= max(columns)) {
+                    throw new IllegalArgumentException("Expected at least " + (max(columns) + 1) + " fields but found " + fields.size() + ".");
+                }
+                run.add(lineNumber, new ProductImportRow(fields.get(columns[0]), fields.get(columns[1]), fields.get(columns[2]),
+                        fields.get(columns[3]), fields.get(columns[4]), fields.get(columns[5])));
+            } catch (IllegalArgumentException e) {
+                run.reject(lineNumber, e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Every line holds one JSON object with the fields name, category, type, color, price and availableQuantity
+     * @param input newline-delimited JSON file
+     * @return imported and rejected counts with the rejected lines
+     */
+    public ProductImportResult importNdjson(InputStream input) throws IOException {
+        BufferedReader reader = reader(input);
+        Run run = new Run();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            ProductImportRow row;
+            try {
+                row = objectMapper.readValue(line, ProductImportRow.class);
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, "Malformed JSON.");
+                continue;
+            }
+            if (row == null) {
+                run.reject(lineNumber, "Expected a JSON object.");
+                continue;
+            }
+            try {
+                run.add(lineNumber, row);
+            } catch (IllegalArgumentException e) {
+                run.reject(lineNumber, e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Applies the rules of a created product to a row
+     */
+    static Product toProduct(ProductImportRow row) {
+        if (row.getCategory() == null || row.getCategory().trim().isEmpty()) {
+            throw new IllegalArgumentException("Category cannot be null.");
+        }
+        Category category;
+        try {
+            category = Category.valueOf(row.getCategory().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown category " + row.getCategory().trim() + ".");
+        }
+        if (row.getType() == null || row.getType().trim().isEmpty()) {
+            throw new IllegalArgumentException("Type cannot be empty.");
+        }
+        if (row.getColor() == null || row.getColor().trim().isEmpty()) {
+            throw new IllegalArgumentException("Color cannot be empty.");
+        }
+        double price;
+        try {
+            price = Double.parseDouble(row.getPrice().trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("Price must be a number.");
+        }
+        if (!Double.isFinite(price)) {
+            // parseDouble accepts NaN and Infinity, and NaN would pass every comparison with zero
+            throw new IllegalArgumentException("Price must be a number.");
+        }
+        Integer availableQuantity;
+        try {
+            availableQuantity = Integer.valueOf(row.getAvailableQuantity().trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("Available quantity must be a whole number.");
+        }
+        DefaultAdminService.validateNewProduct(row.getName(), price, availableQuantity);
+        return new Product(null, row.getName(), category, row.getType(), row.getColor(), price, availableQuantity);
+    }
+
+    /**
+     * Splits one CSV line into fields. A quoted field may contain commas, and a doubled quote inside it stands for a quote
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int[] columns(List<String> header) {
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int column = 0; column < CSV_COLUMNS.length; column++) {
+            columns[column] = -1;
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().equalsIgnoreCase(CSV_COLUMNS[column])) {
+                    columns[column] = i;
+                }
+            }
+            if (columns[column] < 0) {
+                throw new IllegalArgumentException("CSV header is missing the " + CSV_COLUMNS[column] + " column.");
+            }
+        }
+        return columns;
+    }
+
+    private static int max(int[] columns) {
+        int max = 0;
+        for (int column : columns) {
+            max = Math.max(max, column);
+        }
+        return max;
+    }
+
+    private static BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * State of one import: the products waiting for the next batch and the counts so far
+     */
+    private final class Run {
+
+        private final List<Product> batch = new ArrayList<>(batchSize);
+        private final List<Long> batchLines = new ArrayList<>(batchSize);
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        void add(long lineNumber, ProductImportRow row) {
+            batch.add(toProduct(row));
+            batchLines.add(lineNumber);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long lineNumber, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportError(lineNumber, message));
+            }
+        }
+
+        /**
+         * A failed batch is written again one product at a time, so only the lines the database refuses are rejected
+         */
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                productRepository.insertProducts(batch);
+                imported += batch.size();
+            } catch (DataAccessException batchFailure) {
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        productRepository.insertProducts(Collections.singletonList(batch.get(i)));
+                        imported++;
+                    } catch (DataAccessException e) {
+                        reject(batchLines.get(i), "Could not be written: " + e.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+
+        ProductImportResult finish() {
+            flush();
+            errors.sort(Comparator.comparingLong(ProductImportError::getLine));
+            return new ProductImportResult(imported, rejected, errors);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Product;
+
+import java.util.*;
+
+/**
+ * Immutable radix trie over product names, flattened into primitive arrays. Every word of a name starts a path,
+ * so "lip" suggests "Velvet Matte Lipstick". Each node stores its best suggestions, computed at build time,
+ * so a lookup only follows the prefix and never visits the subtree below it.
+ */
+final class ProductNameTrie {
+
+    static final int MAX_SUGGESTIONS = 10;
+    /**
+     * Paths are cut at this depth; longer prefixes are matched on their first MAX_DEPTH characters
+     */
+    static final int MAX_DEPTH = 20;
+
+    private static final ProductNameTrie EMPTY = build(Collections.emptyList());
+
+    private final String[] names;
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final int[] topLength;
+    private final int[] tops;
+
+    private ProductNameTrie(String[] names, char[] labels, int[] labelStart, int[] labelLength, int[] firstChild,
+                            int[] childCount, int[] topStart, int[] topLength, int[] tops) {
+        this.names = names;
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.topStart = topStart;
+        this.topLength = topLength;
+        this.tops = tops;
+    }
+
+    static ProductNameTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Suggestions are distinct names ranked by how many products carry them, then shorter names first
+     */
+    static ProductNameTrie build(Collection<Product> products) {
+        Map<String, Suggestion> byKey = new HashMap<>();
+        for (Product product : products) {
+            if (product.getName() == null || product.getName().trim().isEmpty()) {
+                continue;
+            }
+            String display = product.getName().trim().replaceAll("\\s+", " ");
+            byKey.computeIfAbsent(display.toLowerCase(Locale.ROOT), key -> new Suggestion(key, display)).count++;
+        }
+        List<Suggestion> ranked = new ArrayList<>(byKey.values());
+        ranked.sort(Comparator.comparingInt((Suggestion s) -> -s.count)
+                .thenComparingInt(s -> s.key.length())
+                .thenComparing(s -> s.key));
+
+        // Entries are inserted best first, so the first MAX_SUGGESTIONS entries reaching a node are its best ones
+        Node root = new Node();
+        String[] names = new String[ranked.size()];
+        for (int entry = 0; entry < ranked.size(); entry++) {
+            String key = ranked.get(entry).key;
+            names[entry] = ranked.get(entry).display;
+            for (int start = 0; start < key.length(); start++) {
+                if (start == 0 || key.charAt(start - 1) == ' ') {
+                    insert(root, key, start, entry);
+                }
+            }
+        }
+        return new Flattener().flatten(root, names);
+    }
+
+    /**
+     * Allocates only the returned list
+     * @param prefix typed text, matched case-insensitively
+     * @param limit maximum number of suggestions, at most {@link #MAX_SUGGESTIONS}
+     * @return best product names having a word that starts with the prefix
+     */
+    List<String> suggest(CharSequence prefix, int limit) {
+        int node = 0;
+        int length = Math.min(prefix.length(), MAX_DEPTH);
+        int i = 0;
+        while (i < length) {
+            int child = child(node, Character.toLowerCase(prefix.charAt(i)));
+            if (child < 0) {
+                return Collections.emptyList();
+            }
+            int start = labelStart[child];
+            for (int k = 0; k < labelLength[child] && i < length; k++, i++) {
+                if (labels[start + k] != Character.toLowerCase(prefix.charAt(i))) {
+                    return Collections.emptyList();
+                }
+            }
+            node = child;
+        }
+        int count = Math.min(limit, topLength[node]);
+        List<String> result = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            result.add(names[tops[topStart[node] + k]]);
+        }
+        return result;
+    }
+
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = labels[labelStart[mid]];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static void insert(Node root, String key, int start, int entry) {
+        Node node = root;
+        node.offer(entry);
+        int end = Math.min(key.length(), start + MAX_DEPTH);
+        for (int i = start; i < end; i++) {
+            node = node.child(key.charAt(i));
+            node.offer(entry);
+        }
+        node.terminal = true;
+    }
+
+    private static final class Suggestion {
+        private final String key;
+        private final String display;
+        private int count;
+
+        private Suggestion(String key, String display) {
+            this.key = key;
+            this.display = display;
+        }
+    }
+
+    /**
+     * Build-time node; discarded once the trie is flattened
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int[] top = new int[0];
+        private boolean terminal;
+
+        private Node child(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            if (position >= 0) {
+                return children[position];
+            }
+            position = -position - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newKeys[position] = c;
+            newChildren[position] = child;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        private void offer(int entry) {
+            if (top.length < MAX_SUGGESTIONS && (top.length == 0 || top[top.length - 1] != entry)) {
+                top = Arrays.copyOf(top, top.length + 1);
+                top[top.length - 1] = entry;
+            }
+        }
+    }
+
+    /**
+     * Lays the build-time nodes out breadth first, so the children of a node are contiguous and sorted,
+     * and merges single-child chains into one edge. A node keeps its parent's suggestion slice when they are equal.
+     */
+    private static final class Flattener {
+        private final StringBuilder labels = new StringBuilder();
+        private int[] labelStart = new int[16];
+        private int[] labelLength = new int[16];
+        private int[] firstChild = new int[16];
+        private int[] childCount = new int[16];
+        private int[] topStart = new int[16];
+        private int[] topLength = new int[16];
+        private int[] tops = new int[16];
+        private int nodes;
+        private int topsUsed;
+
+        private ProductNameTrie flatten(Node root, String[] names) {
+            List<Node> queue = new ArrayList<>();
+            queue.add(root);
+            allocate(root, 0, 0, -1);
+            for (int index = 0; index < queue.size(); index++) {
+                Node node = queue.get(index);
+                firstChild[index] = nodes;
+                childCount[index] = node.children.length;
+                for (int c = 0; c < node.children.length; c++) {
+                    int start = labels.length();
+                    labels.append(node.keys[c]);
+                    Node end = node.children[c];
+                    while (end.children.length == 1 && !end.terminal) {
+                        labels.append(end.keys[0]);
+                        end = end.children[0];
+                    }
+                    allocate(end, start, labels.length() - start, index);
+                    queue.add(end);
+                }
+            }
+            return new ProductNameTrie(names, labels.toString().toCharArray(),
+                    Arrays.copyOf(labelStart, nodes), Arrays.copyOf(labelLength, nodes),
+                    Arrays.copyOf(firstChild, nodes), Arrays.copyOf(childCount, nodes),
+                    Arrays.copyOf(topStart, nodes), Arrays.copyOf(topLength, nodes), Arrays.copyOf(tops, topsUsed));
+        }
+
+        private void allocate(Node node, int start, int length, int parent) {
+            if (nodes == labelStart.length) {
+                int size = nodes * 2;
+                labelStart = Arrays.copyOf(labelStart, size);
+                labelLength = Arrays.copyOf(labelLength, size);
+                firstChild = Arrays.copyOf(firstChild, size);
+                childCount = Arrays.copyOf(childCount, size);
+                topStart = Arrays.copyOf(topStart, size);
+                topLength = Arrays.copyOf(topLength, size);
+            }
+            labelStart[nodes] = start;
+            labelLength[nodes] = length;
+            if (parent >= 0 && sameAsParent(node.top, parent)) {
+                topStart[nodes] = topStart[parent];
+            } else {
+                if (topsUsed + node.top.length > tops.length) {
+                    tops = Arrays.copyOf(tops, Math.max(tops.length * 2, topsUsed + node.top.length));
+                }
+                System.arraycopy(node.top, 0, tops, topsUsed, node.top.length);
+                topStart[nodes] = topsUsed;
+                topsUsed += node.top.length;
+            }
+            topLength[nodes] = node.top.length;
+            nodes++;
+        }
+
+        private boolean sameAsParent(int[] top, int parent) {
+            if (topLength[parent] != top.length) {
+                return false;
+            }
+            for (int i = 0; i < top.length; i++) {
+                if (tops[topStart[parent] + i] != top[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
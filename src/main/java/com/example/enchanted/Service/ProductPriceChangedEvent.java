@@ -0,0 +1,29 @@
+package com.example.enchanted.Service;
+
+/**
+ * Published after an admin edit has changed the price of a product, so that totals depending on it can be recomputed
+ */
+public class ProductPriceChangedEvent {
+
+    private final Integer productId;
+    private final double oldPrice;
+    private final double newPrice;
+
+    public ProductPriceChangedEvent(Integer productId, double oldPrice, double newPrice) {
+        this.productId = productId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public double getOldPrice() {
+        return oldPrice;
+    }
+
+    public double getNewPrice() {
+        return newPrice;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.enchanted.Service;
+
+/**
+ * Published when the available quantity of a product changed because of an order rather than an admin edit.
+ * It carries the difference only, so listeners can fold many of them together in any order.
+ */
+public class ProductStockChangedEvent {
+
+    private final Integer productId;
+    private final int delta;
+
+    public ProductStockChangedEvent(Integer productId, int delta) {
+        this.productId = productId;
+        this.delta = delta;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    /**
+     * @return units added to the available quantity, negative when stock was taken
+     */
+    public int getDelta() {
+        return delta;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Product;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process inverted index over product name, type and color. Every word is indexed by its character trigrams
+ * and by its one- and two-letter prefixes, so a query word matches anywhere inside an indexed word.
+ * Posting lists are sorted ID arrays that are replaced, never modified, when a product changes.
+ * Documents only keep the words of a product; hits are read from the current {@link CatalogSnapshot},
+ * so their quantity and price are never older than the catalog's.
+ */
+@Component
+public class ProductTextIndex {
+
+    private static final int GRAM = 3;
+    private static final String PREFIX_MARK = "^";
+
+    private final ProductCatalog productCatalog;
+    private final Object writeLock = new Object();
+    private volatile Index index;
+
+    public ProductTextIndex(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+    }
+
+    /**
+     * Every word of the query has to occur in the name, type or color of a product.
+     * Matches in the name rank above matches in type or color, whole words above prefixes, prefixes above infixes.
+     * @param query free text
+     * @param limit maximum number of products returned
+     * @return best matching products, best first
+     */
+    public List<Product> search(String query, int limit) {
+        Index index = ensureBuilt();
+        String[] terms = tokenize(query);
+        if (terms.length == 0) {
+            return Collections.emptyList();
+        }
+        int[] candidates = null;
+        for (String term : terms) {
+            int[] matches = index.candidates(term);
+            candidates = candidates == null ? matches : intersect(candidates, matches);
+            if (candidates.length == 0) {
+                return Collections.emptyList();
+            }
+        }
+
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.BEST_FIRST.reversed());
+        for (int id : candidates) {
+            Document document = index.documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            double score = document.score(terms);
+            if (score <= 0) {
+                continue;
+            }
+            Product product = snapshot.findById(id);
+            if (product != null) {
+                top.offer(new Hit(product, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.BEST_FIRST);
+        List<Product> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.product);
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureBuilt();
+    }
+
+    /**
+     * The new document takes the place of the old one in a single put. Its grams are posted before and the grams
+     * only the old one had are removed after, so a concurrent search finds the product through either version.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            Index index = this.index;
+            if (index == null) {
+                return;
+            }
+            Integer productId = event.getProductId();
+            if (event.isDeleted()) {
+                Document removed = index.documents.remove(productId);
+                if (removed != null) {
+                    index.unpost(productId, removed.grams);
+                }
+                return;
+            }
+            Document document = new Document(event.getProduct());
+            index.post(productId, document.grams);
+            Document previous = index.documents.put(productId, document);
+            if (previous != null) {
+                Set<String> stale = new HashSet<>(previous.grams);
+                stale.removeAll(document.grams);
+                index.unpost(productId, stale);
+            }
+        }
+    }
+
+    /**
+     * The index is built again aside and swapped in, so searches keep using the old one meanwhile
+     */
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        synchronized (writeLock) {
+            if (index != null) {
+                index = build();
+            }
+        }
+    }
+
+    private Index ensureBuilt() {
+        Index current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (index == null) {
+                index = build();
+            }
+            return index;
+        }
+    }
+
+    private Index build() {
+        Index built = new Index();
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (Product product : productCatalog.snapshot().findAll()) {
+            Document document = new Document(product);
+            built.documents.put(product.getId(), document);
+            for (String gram : document.grams) {
+                lists.computeIfAbsent(gram, key -> new ArrayList<>()).add(product.getId());
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            built.postings.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).sorted().toArray());
+        }
+        return built;
+    }
+
+    /**
+     * @param term a lower-case word
+     * @param infix true for the word's trigrams, false for its prefix gram
+     */
+    private static Set<String> grams(String term, boolean infix) {
+        Set<String> grams = new HashSet<>();
+        if (infix) {
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                grams.add(term.substring(i, i + GRAM));
+            }
+        } else {
+            grams.add(PREFIX_MARK + term);
+        }
+        return grams;
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        if (ids == null) {
+            return new int[]{id};
+        }
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+        int[] copy = new int[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, position);
+        copy[position] = id;
+        System.arraycopy(ids, position, copy, position + 1, ids.length - position);
+        return copy;
+    }
+
+    private static int[] delete(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        int[] copy = new int[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, position);
+        System.arraycopy(ids, position + 1, copy, position, ids.length - position - 1);
+        return copy;
+    }
+
+    /**
+     * Posting lists and documents of one build
+     */
+    private static final class Index {
+        private final ConcurrentMap<String, int[]> postings = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Integer, Document> documents = new ConcurrentHashMap<>();
+
+        private void post(Integer productId, Set<String> grams) {
+            for (String gram : grams) {
+                postings.compute(gram, (key, ids) -> insert(ids, productId));
+            }
+        }
+
+        private void unpost(Integer productId, Set<String> grams) {
+            for (String gram : grams) {
+                postings.computeIfPresent(gram, (key, ids) -> delete(ids, productId));
+            }
+        }
+
+        private int[] candidates(String term) {
+            List<int[]> lists = new ArrayList<>();
+            for (String gram : grams(term, term.length() >= GRAM)) {
+                int[] ids = postings.get(gram);
+                if (ids == null) {
+                    return new int[0];
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(ids -> ids.length));
+            int[] result = lists.get(0);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Words and grams of one product; the product itself is read from the catalog snapshot
+     */
+    private static final class Document {
+        private final String[] nameWords;
+        private final String[] otherWords;
+        private final Set<String> grams = new HashSet<>();
+
+        private Document(Product product) {
+            this.nameWords = tokenize(product.getName());
+            List<String> other = new ArrayList<>(Arrays.asList(tokenize(product.getType())));
+            other.addAll(Arrays.asList(tokenize(product.getColor())));
+            this.otherWords = other.toArray(new String[0]);
+            for (String word : nameWords) {
+                index(word);
+            }
+            for (String word : otherWords) {
+                index(word);
+            }
+        }
+
+        private void index(String word) {
+            grams.addAll(grams(word, true));
+            for (int length = 1; length < GRAM && length <= word.length(); length++) {
+                grams.add(PREFIX_MARK + word.substring(0, length));
+            }
+        }
+
+        /**
+         * @return 0 if some term does not occur in the product, a positive relevance otherwise
+         */
+        private double score(String[] terms) {
+            double score = 0;
+            for (String term : terms) {
+                double best = Math.max(match(nameWords, term, 1.0), match(otherWords, term, 0.5));
+                if (best == 0) {
+                    return 0;
+                }
+                score += best;
+            }
+            return score;
+        }
+
+        private static double match(String[] words, String term, double weight) {
+            double best = 0;
+            for (String word : words) {
+                if (word.equals(term)) {
+                    return 3 * weight;
+                } else if (word.startsWith(term)) {
+                    best = Math.max(best, 2 * weight);
+                } else if (word.contains(term)) {
+                    best = Math.max(best, weight);
+                }
+            }
+            return best;
+        }
+    }
+
+    private static final class Hit {
+        private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble((Hit hit) -> hit.score).reversed()
+                .thenComparingInt(hit -> hit.product.getName() == null ? 0 : hit.product.getName().length())
+                .thenComparing(hit -> hit.product.getId());
+
+        private final Product product;
+        private final double score;
+
+        private Hit(Product product, double score) {
+            this.product = product;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.enchanted.Service;
+
+/**
+ * Published after a bulk import wrote new products. Imported products are not announced one by one,
+ * so in-memory views of the catalog reload themselves once instead of applying thousands of single changes.
+ */
+public class ProductsImportedEvent {
+
+    private final long count;
+
+    public ProductsImportedEvent(long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return number of products written
+     */
+    public long getCount() {
+        return count;
+    }
+}
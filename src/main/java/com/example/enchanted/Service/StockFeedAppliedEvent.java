@@ -0,0 +1,21 @@
+package com.example.enchanted.Service;
+
+/**
+ * Published after a warehouse stock feed set the available quantity of many products with plain SQL.
+ * The changed products are not listed, so listeners refresh their whole view of product stock.
+ */
+public class StockFeedAppliedEvent {
+
+    private final long updated;
+
+    public StockFeedAppliedEvent(long updated) {
+        this.updated = updated;
+    }
+
+    /**
+     * @return number of products whose stock was set
+     */
+    public long getUpdated() {
+        return updated;
+    }
+}
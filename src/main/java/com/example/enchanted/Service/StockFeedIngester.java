@@ -0,0 +1,221 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.ProductImportError;
+import com.example.enchanted.Pojo.StockFeedResult;
+import com.example.enchanted.Repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Applies warehouse stock feeds. A feed is a text file with one fixed-format record per line: the product ID in
+ * columns 1-10 and the on-hand quantity in columns 11-20, both right aligned and padded with spaces or leading zeros;
+ * anything after column 20 is ignored. The file is memory-mapped and its digits are read straight from the mapping,
+ * so a line costs no allocation, and the quantities are written in batched UPDATEs keyed by product ID.
+ */
+@Component
+public class StockFeedIngester {
+
+    private static final int ID_WIDTH = 10;
+    private static final int QUANTITY_WIDTH = 10;
+    private static final int RECORD_WIDTH = ID_WIDTH + QUANTITY_WIDTH;
+
+    /**
+     * Files are mapped in windows of this size, so feeds above the 2 GB limit of a single mapping are read as well
+     */
+    private static final long WINDOW = 256L * 1024 * 1024;
+
+    private final ProductRepository productRepository;
+    private final HotInventory hotInventory;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public StockFeedIngester(ProductRepository productRepository, HotInventory hotInventory,
+                             @Value("${stock-feed.directory:feeds}") String directory,
+                             @Value("${stock-feed.batch-size:5000}") int batchSize,
+                             @Value("${stock-feed.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.hotInventory = hotInventory;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Sets the available quantity of every product listed in the feed to its on-hand quantity less the units
+     * held in cart lines, so the feed does not hand out stock that customers already reserved.
+     * Products in hot inventory mode are left out, part of their stock is leased to the in-memory counters until
+     * the sale ends. Feeds are applied one at a time.
+     * @param fileName name of the feed inside the feed directory
+     * @return counts of updated, unknown, skipped and malformed lines
+     */
+    public synchronized StockFeedResult ingest(String fileName) throws IOException {
+        Path file = resolve(fileName);
+        long started = System.nanoTime();
+        Run run = new Run(hotInventory.hotProductIds().stream().mapToInt(Integer::intValue).sorted().toArray());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = run.read(window, position + length == size);
+                if (consumed == 0) {
+                    throw new IllegalArgumentException("Stock feed has a line longer than " + WINDOW + " bytes.");
+                }
+                position += consumed;
+            }
+        }
+        run.flush();
+        return run.result((System.nanoTime() - started) / 1_000_000);
+    }
+
+    private Path resolve(String fileName) {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Stock feed file name cannot be empty.");
+        }
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory)) {
+            throw new IllegalArgumentException("Stock feed must be inside the feed directory.");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Stock feed " + fileName + " not found.");
+        }
+        return file;
+    }
+
+    /**
+     * @return the number in the given columns, or -1 when they hold anything but spaces followed by digits
+     */
+    private static long number(MappedByteBuffer window, int from, int to) {
+        int i = from;
+        while (i < to && window.get(i) == ' ') {
+            i++;
+        }
+        if (i == to) {
+            return -1;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            byte b = window.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value > Integer.MAX_VALUE ? -1 : value;
+    }
+
+    /**
+     * State of one feed: the records waiting for the next batch and the counts so far
+     */
+    private final class Run {
+
+        private final int[] hotProductIds;
+        private final int[] productIds = new int[batchSize];
+        private final int[] quantities = new int[batchSize];
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private int pending;
+        private long lineNumber;
+        private long lines;
+        private long updated;
+        private long unknown;
+        private long skipped;
+        private long rejected;
+
+        Run(int[] hotProductIds) {
+            this.hotProductIds = hotProductIds;
+        }
+
+        /**
+         * @return bytes of the window taken up by complete lines; an unfinished last line is read again with the next window
+         */
+        int read(MappedByteBuffer window, boolean endOfFile) {
+            int limit = window.limit();
+            int lineStart = 0;
+            for (int i = 0; i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    line(window, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfFile && lineStart < limit) {
+                line(window, lineStart, limit);
+                lineStart = limit;
+            }
+            return lineStart;
+        }
+
+        private void line(MappedByteBuffer window, int start, int end) {
+            lineNumber++;
+            if (end > start && window.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end == start) {
+                return;
+            }
+            lines++;
+            if (end - start < RECORD_WIDTH) {
+                reject("Expected at least " + RECORD_WIDTH + " characters but found " + (end - start) + ".");
+                return;
+            }
+            long productId = number(window, start, start + ID_WIDTH);
+            if (productId <= 0) {
+                reject("Product ID is not a positive number.");
+                return;
+            }
+            long quantity = number(window, start + ID_WIDTH, start + RECORD_WIDTH);
+            if (quantity < 0) {
+                reject("Available quantity is not a number.");
+                return;
+            }
+            if (Arrays.binarySearch(hotProductIds, (int) productId) >= 0) {
+                skipped++;
+                return;
+            }
+            productIds[pending] = (int) productId;
+            quantities[pending] = (int) quantity;
+            pending++;
+            if (pending == batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportError(lineNumber, message));
+            }
+        }
+
+        void flush() {
+            if (pending == 0) {
+                return;
+            }
+            int[] counts = productRepository.setOnHandQuantities(productIds, quantities, pending);
+            for (int count : counts) {
+                if (count == 0) {
+                    unknown++;
+                } else {
+                    updated++;
+                }
+            }
+            pending = 0;
+        }
+
+        StockFeedResult result(long elapsedMillis) {
+            return new StockFeedResult(lines, updated, unknown, skipped, rejected, errors, elapsedMillis);
+        }
+    }
+}
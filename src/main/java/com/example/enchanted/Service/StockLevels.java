@@ -0,0 +1,216 @@
+package com.example.enchanted.Service;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps the IDs of products that are out of stock or running low, so the admin dashboard reads them
+ * without scanning the product table. The sets are loaded once and then moved along with every admin edit and
+ * every committed stock change of the order path; bulk imports and stock feeds load them again.
+ * A product is running low while its available quantity is above 0 and at or below the threshold of its category.
+ */
+@Component
+public class StockLevels {
+
+    private final ProductRepository productRepository;
+    private final HotInventory hotInventory;
+    private final int defaultThreshold;
+    private final Map<Category, Integer> thresholds = new EnumMap<>(Category.class);
+    private final Object writeLock = new Object();
+    private final Map<Integer, Level> levels = new HashMap<>();
+    private final NavigableSet<Integer> outOfStock = new ConcurrentSkipListSet<>();
+    private final Map<Category, NavigableSet<Integer>> lowStock = new EnumMap<>(Category.class);
+    private volatile boolean loaded;
+
+    public StockLevels(ProductRepository productRepository, HotInventory hotInventory,
+                       @Value("${inventory.low-stock.threshold:5}") int defaultThreshold,
+                       @Value("${inventory.low-stock.category-thresholds:}") String categoryThresholds) {
+        this.productRepository = productRepository;
+        this.hotInventory = hotInventory;
+        this.defaultThreshold = defaultThreshold;
+        for (String entry : categoryThresholds.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Low stock threshold must look like CATEGORY=quantity but was " + entry.trim() + ".");
+            }
+            thresholds.put(Category.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        for (Category category : Category.values()) {
+            lowStock.put(category, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    /**
+     * @return quantity at or below which products of the category count as running low
+     */
+    public int threshold(Category category) {
+        return thresholds.getOrDefault(category, defaultThreshold);
+    }
+
+    /**
+     * @return last known available quantity of the product, or null when it is not tracked
+     */
+    public Integer quantity(Integer productId) {
+        ensureLoaded();
+        synchronized (writeLock) {
+            Level level = levels.get(productId);
+            return level == null ? null : level.quantity;
+        }
+    }
+
+    /**
+     * @return IDs of the products without available stock, in ID order
+     */
+    public List<Integer> outOfStock() {
+        ensureLoaded();
+        return new ArrayList<>(outOfStock);
+    }
+
+    /**
+     * @param category category to look at, or null for every category
+     * @return IDs of the products running low, in ID order
+     */
+    public List<Integer> lowStock(Category category) {
+        ensureLoaded();
+        if (category != null) {
+            return new ArrayList<>(lowStock.get(category));
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (NavigableSet<Integer> set : lowStock.values()) {
+            ids.addAll(set);
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Discards the tracked quantities and loads them again from the database. The units leased to
+     * {@link HotInventory} are missing from the row of a hot product and are added back.
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            levels.clear();
+            outOfStock.clear();
+            lowStock.values().forEach(NavigableSet::clear);
+            for (Product product : productRepository.findAll()) {
+                int quantity = product.getAvailableQuantity() == null ? 0 : product.getAvailableQuantity();
+                set(product.getId(), product.getCategory(), quantity + hotInventory.leased(product.getId()));
+            }
+            loaded = true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            if (!loaded) {
+                return;
+            }
+            if (event.isDeleted()) {
+                remove(event.getProductId());
+            } else {
+                Product product = event.getProduct();
+                remove(product.getId());
+                set(product.getId(), product.getCategory(), product.getAvailableQuantity());
+            }
+        }
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (loaded) {
+            reload();
+        }
+    }
+
+    @EventListener
+    public void onStockFeedApplied(StockFeedAppliedEvent event) {
+        if (loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * Only committed changes move a product between the sets, a rolled back order leaves them alone.
+     * Runs before other listeners of the event, so they read the new quantity from {@link #quantity(Integer)}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        synchronized (writeLock) {
+            if (!loaded) {
+                return;
+            }
+            Level level = remove(event.getProductId());
+            if (level != null) {
+                set(event.getProductId(), level.category, level.quantity + event.getDelta());
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (writeLock) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void set(Integer productId, Category category, Integer quantity) {
+        int available = quantity == null ? 0 : quantity;
+        levels.put(productId, new Level(category, available));
+        if (available <= 0) {
+            outOfStock.add(productId);
+        } else if (category != null && available <= threshold(category)) {
+            lowStock.get(category).add(productId);
+        }
+    }
+
+    private Level remove(Integer productId) {
+        Level level = levels.remove(productId);
+        if (level != null) {
+            outOfStock.remove(productId);
+            if (level.category != null) {
+                lowStock.get(level.category).remove(productId);
+            }
+        }
+        return level;
+    }
+
+    private static final class Level {
+        private final Category category;
+        private final int quantity;
+
+        Level(Category category, int quantity) {
+            this.category = category;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+-- Schema as Hibernate created it for the application before migrations took over: identity IDs, a one-to-one
+-- product on every cart line and no secondary indexes. Databases that already hold these tables are baselined
+-- at this version and skip it; everything added since is in the later versions, so both kinds of database
+-- end up with the same schema.
+
+CREATE TABLE product (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    available_quantity INTEGER,
+    category VARCHAR(255),
+    color VARCHAR(255),
+    name VARCHAR(255),
+    price DOUBLE PRECISION NOT NULL,
+    type VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cart (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    total_price DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE customer (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    address VARCHAR(255),
+    email VARCHAR(255),
+    name VARCHAR(255),
+    phone_number VARCHAR(255),
+    cart_id INTEGER,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_customer_cart UNIQUE (cart_id),
+    CONSTRAINT fk_customer_cart FOREIGN KEY (cart_id) REFERENCES cart (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product_orders (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    amount INTEGER,
+    cart_id INTEGER,
+    product_id INTEGER,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_product_orders_product UNIQUE (product_id),
+    CONSTRAINT fk_product_orders_cart FOREIGN KEY (cart_id) REFERENCES cart (id),
+    CONSTRAINT fk_product_orders_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
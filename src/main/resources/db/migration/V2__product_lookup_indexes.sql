@@ -0,0 +1,7 @@
+-- Indexes behind the product lookups. InnoDB appends the primary key to every secondary index,
+-- so the same indexes also serve the keyset pages ordered by id.
+
+CREATE INDEX idx_product_category_color ON product (category, color);
+CREATE INDEX idx_product_color ON product (color);
+CREATE INDEX idx_product_type ON product (type);
+CREATE INDEX idx_product_available_quantity ON product (available_quantity);
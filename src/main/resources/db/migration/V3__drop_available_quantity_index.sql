@@ -0,0 +1,4 @@
+-- The out-of-stock list is kept in memory now, nothing reads product by available quantity any more.
+-- Every order changes available_quantity, so the index only cost a secondary index write per reservation.
+
+DROP INDEX idx_product_available_quantity ON product;
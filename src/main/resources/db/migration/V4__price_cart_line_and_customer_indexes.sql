@@ -0,0 +1,8 @@
+-- Indexes behind the price range queries, the carts-holding-a-product lookup of repricing
+-- and the prefix filters of the admin customer listing.
+
+CREATE INDEX idx_product_price ON product (price);
+CREATE INDEX idx_product_category_price ON product (category, price);
+CREATE INDEX idx_product_orders_product_cart ON product_orders (product_id, cart_id);
+CREATE INDEX idx_customer_name ON customer (name);
+CREATE INDEX idx_customer_email ON customer (email);
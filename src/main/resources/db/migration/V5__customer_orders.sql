@@ -0,0 +1,21 @@
+-- Orders written by checkout. They are never updated, and their lines keep the name and price the product had.
+
+CREATE TABLE customer_orders (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    cart_id INTEGER NOT NULL,
+    total DOUBLE PRECISION NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE order_lines (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    order_id INTEGER NOT NULL,
+    product_id INTEGER NOT NULL,
+    product_name VARCHAR(255),
+    price DOUBLE PRECISION NOT NULL,
+    amount INTEGER NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_order_lines_order ON order_lines (order_id);
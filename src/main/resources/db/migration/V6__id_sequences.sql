@@ -0,0 +1,11 @@
+-- Tables behind the pooled ID generators. Each starts past the highest ID its table already holds,
+-- so the first block handed out cannot collide with a row written while the IDs were identity columns.
+
+CREATE TABLE product_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO product_seq SELECT COALESCE(MAX(id), 0) + 1 FROM product;
+CREATE TABLE cart_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO cart_seq SELECT COALESCE(MAX(id), 0) + 1 FROM cart;
+CREATE TABLE customer_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO customer_seq SELECT COALESCE(MAX(id), 0) + 1 FROM customer;
+CREATE TABLE product_orders_seq (next_val BIGINT) ENGINE = InnoDB;
+INSERT INTO product_orders_seq SELECT COALESCE(MAX(id), 0) + 1 FROM product_orders;
@@ -0,0 +1,26 @@
+-- A cart holds one line per product. Lines written twice for the same product are merged into the oldest one
+-- with their amounts added up, which leaves cart totals and stock as they were; then the key on (cart_id, product_id)
+-- replaces the key on product_id alone that the former one-to-one mapping left, so a product can be in more than one cart.
+
+UPDATE product_orders o
+JOIN (SELECT MIN(id) AS id, SUM(amount) AS amount FROM product_orders
+      WHERE cart_id IS NOT NULL GROUP BY cart_id, product_id HAVING COUNT(*) > 1) merged ON o.id = merged.id
+SET o.amount = merged.amount;
+
+DELETE o FROM product_orders o
+JOIN (SELECT MIN(id) AS id, cart_id, product_id FROM product_orders
+      WHERE cart_id IS NOT NULL GROUP BY cart_id, product_id HAVING COUNT(*) > 1) merged
+  ON o.cart_id = merged.cart_id AND o.product_id = merged.product_id AND o.id <> merged.id;
+
+-- Hibernate generated the name of the old key, so it is looked up. The foreign key on product_id
+-- is served by idx_product_orders_product_cart from V4 once the key is gone.
+SET @product_key = (SELECT MIN(index_name) FROM (
+    SELECT index_name FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'product_orders' AND non_unique = 0 AND index_name <> 'PRIMARY'
+    GROUP BY index_name HAVING GROUP_CONCAT(column_name) = 'product_id') product_keys);
+SET @drop_product_key = IF(@product_key IS NULL, 'DO 0', CONCAT('ALTER TABLE product_orders DROP INDEX `', @product_key, '`'));
+PREPARE drop_product_key FROM @drop_product_key;
+EXECUTE drop_product_key;
+DEALLOCATE PREPARE drop_product_key;
+
+ALTER TABLE product_orders ADD CONSTRAINT uk_product_orders_cart_product UNIQUE (cart_id, product_id);
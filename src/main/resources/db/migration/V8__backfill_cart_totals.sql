@@ -0,0 +1,7 @@
+-- Cart totals are kept up to date with every line change since this version. Carts written before
+-- hold a stale total, so every total is computed from its lines once.
+
+UPDATE cart c
+SET c.total_price = (SELECT COALESCE(SUM(o.amount * p.price), 0)
+                     FROM product_orders o JOIN product p ON p.id = o.product_id
+                     WHERE o.cart_id = c.id);
@@ -0,0 +1,6 @@
+-- Cart lines hold their stock until checkout. The time a line last took stock lets lines of abandoned carts be
+-- released; lines already in carts count from the upgrade.
+
+ALTER TABLE product_orders ADD COLUMN reserved_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+CREATE INDEX idx_product_orders_reserved_at ON product_orders (reserved_at);
@@ -3,6 +3,7 @@ package com.example.enchanted;
 import com.example.enchanted.Pojo.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.example.enchanted.Controller.AdminController;
+import com.example.enchanted.Controller.CustomerController;
 import com.example.enchanted.Service.AdminService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +11,8 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -17,12 +20,15 @@ import javax.persistence.EntityNotFoundException;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -247,46 +253,62 @@ public class AdminControllerTests {
     }
 
     @Test
-    public void testFindAllCustomers_SuccessfulRetrieval() throws Exception {
-        //Arrange
-        Customer customer1 = new Customer();
-        customer1.setId(1);
-        customer1.setName("John Doe");
-        customer1.setEmail("john.doe@example.com");
-        customer1.setAddress("123 Main St");
-        customer1.setPhoneNumber("123-456-7890");
-
-        Customer customer2 = new Customer();
-        customer2.setId(2);
-        customer2.setName("Jane Smith");
-        customer2.setEmail("jane.smith@example.com");
-        customer2.setAddress("456 Elm St");
-        customer2.setPhoneNumber("098-765-4321");
+    public void testLowStockProducts_FilteredByCategory() throws Exception {
+        // Arrange
+        Product product = new Product(3, "Mascara", Category.EYES, "mascara", "black", 9.99, 2);
+        when(adminService.lowStockProducts(Category.EYES)).thenReturn(Collections.singletonList(product));
 
-        List<Customer> customers = Arrays.asList(customer1, customer2);
+        // Act & Assert
+        mockMvc.perform(get("/lowStock").param("category", "EYES")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].availableQuantity").value(2));
+    }
 
-        when(adminService.findAllCustomers()).thenReturn(customers);
+    @Test
+    public void testFindCustomers_SuccessfulRetrieval() throws Exception {
+        //Arrange
+        List<CustomerSummary> customers = Arrays.asList(new CustomerSummary(1, "John Doe", "john.doe@example.com", 5),
+                new CustomerSummary(2, "Jane Smith", "jane.smith@example.com", null));
+        when(adminService.findCustomers(null, null, null, 50)).thenReturn(new SliceImpl<>(customers));
 
         // Act & Assert
         mockMvc.perform(get("/customers")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CustomerController.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].name").value("John Doe"))
                 .andExpect(jsonPath("$[0].email").value("john.doe@example.com"))
-                .andExpect(jsonPath("$[0].address").value("123 Main St"))
-                .andExpect(jsonPath("$[0].phoneNumber").value("123-456-7890"))
+                .andExpect(jsonPath("$[0].cartId").value(5))
+                .andExpect(jsonPath("$[0].address").doesNotExist())
                 .andExpect(jsonPath("$[1].id").value(2))
                 .andExpect(jsonPath("$[1].name").value("Jane Smith"))
-                .andExpect(jsonPath("$[1].email").value("jane.smith@example.com"))
-                .andExpect(jsonPath("$[1].address").value("456 Elm St"))
-                .andExpect(jsonPath("$[1].phoneNumber").value("098-765-4321"));
+                .andExpect(jsonPath("$[1].email").value("jane.smith@example.com"));
+    }
+
+    @Test
+    public void testFindCustomers_FiltersAndNextPage() throws Exception {
+        // Arrange
+        List<CustomerSummary> customers = Collections.singletonList(new CustomerSummary(7, "John Doe", "john.doe@example.com", 5));
+        when(adminService.findCustomers("Jo", "john", 4, 1)).thenReturn(new SliceImpl<>(customers, PageRequest.of(0, 1), true));
+
+        // Act & Assert
+        mockMvc.perform(get("/customers")
+                        .param("name", "Jo")
+                        .param("email", "john")
+                        .param("after", CustomerCursor.encode(4))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CustomerController.NEXT_CURSOR_HEADER, CustomerCursor.encode(7)))
+                .andExpect(jsonPath("$.length()").value(1));
     }
 
     @Test
-    public void testFindAllCustomers_EmptyList() throws Exception {
+    public void testFindCustomers_EmptyList() throws Exception {
         // Arrange
-        when(adminService.findAllCustomers()).thenReturn(Collections.emptyList());
+        when(adminService.findCustomers(null, null, null, 50)).thenReturn(new SliceImpl<>(Collections.emptyList()));
 
         // Act & Assert
         mockMvc.perform(get("/customers")
@@ -295,6 +317,14 @@ public class AdminControllerTests {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    public void testFindCustomers_InvalidCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/customers").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(adminService);
+    }
+
     @Test
     public void testFindCustomerById_SuccessfulRetrieval() throws Exception {
         // Arrange
@@ -376,6 +406,135 @@ public class AdminControllerTests {
 
         verify(adminService).findCustomerByCartId(cartId);
     }
-}
 
+    @Test
+    public void testProductCacheStatistics_Success() throws Exception {
+        // Arrange
+        when(adminService.productCacheStatistics()).thenReturn(new ProductCacheStatistics(90, 10, 12, 3, 9, 40, 5, 5));
+
+        // Act & Assert
+        mockMvc.perform(get("/admin/cache/stats")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entityHits").value(90))
+                .andExpect(jsonPath("$.entityEvictions").value(3))
+                .andExpect(jsonPath("$.queryMisses").value(5));
+    }
+
+    @Test
+    public void testEnableHotInventory_Success() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/admin/hotInventory/{id}", 1))
+                .andExpect(status().isOk());
+        verify(adminService, times(1)).enableHotInventory(1);
+    }
+
+    @Test
+    public void testEnableHotInventory_ProductNotFound() throws Exception {
+        // Arrange
+        doThrow(new EntityNotFoundException("Product with ID 99 not found.")).when(adminService).enableHotInventory(99);
+
+        // Act & Assert
+        mockMvc.perform(put("/admin/hotInventory/{id}", 99))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testDisableHotInventory_Success() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/admin/hotInventory/{id}", 1))
+                .andExpect(status().isOk());
+        verify(adminService, times(1)).disableHotInventory(1);
+    }
+
+    @Test
+    public void testHotInventoryProducts_Success() throws Exception {
+        // Arrange
+        Set<Integer> hot = new TreeSet<>(Arrays.asList(1, 4));
+        when(adminService.hotInventoryProducts()).thenReturn(hot);
+
+        // Act & Assert
+        mockMvc.perform(get("/admin/hotInventory"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1]").value(4));
+    }
+
+    @Test
+    public void testImportProducts_Csv() throws Exception {
+        // Arrange
+        String csv = "name,category,type,color,price,availableQuantity\nVelvet Lip,LIPS,lipstick,red,12.5,100\n";
+        when(adminService.importCsv(any())).thenReturn(new ProductImportResult(1, 1,
+                Collections.singletonList(new ProductImportError(3, "Unknown category CHEEKS."))));
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/products/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Unknown category CHEEKS."));
+        verify(adminService, never()).importNdjson(any());
+    }
+
+    @Test
+    public void testImportProducts_Ndjson() throws Exception {
+        // Arrange
+        when(adminService.importNdjson(any())).thenReturn(new ProductImportResult(2, 0, Collections.emptyList()));
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/products/import")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+        verify(adminService, never()).importCsv(any());
+    }
+
+    @Test
+    public void testImportProducts_MissingHeaderColumn() throws Exception {
+        // Arrange
+        when(adminService.importCsv(any())).thenThrow(new IllegalArgumentException("CSV header is missing the price column."));
 
+        // Act & Assert
+        mockMvc.perform(post("/admin/products/import")
+                        .contentType("text/csv")
+                        .content("name\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testImportProducts_UnsupportedContentType() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/admin/products/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    public void testApplyStockFeed_Success() throws Exception {
+        // Arrange
+        when(adminService.applyStockFeed("stock.txt")).thenReturn(new StockFeedResult(1000000, 999990, 5, 3, 2,
+                Collections.singletonList(new ProductImportError(17, "Available quantity is not a number.")), 4200));
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/stockFeed").param("file", "stock.txt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(999990))
+                .andExpect(jsonPath("$.skippedHotProducts").value(3))
+                .andExpect(jsonPath("$.errors[0].line").value(17));
+    }
+
+    @Test
+    public void testApplyStockFeed_MissingFile() throws Exception {
+        // Arrange
+        when(adminService.applyStockFeed("missing.txt")).thenThrow(new IllegalArgumentException("Stock feed missing.txt not found."));
+
+        // Act & Assert
+        mockMvc.perform(post("/admin/stockFeed").param("file", "missing.txt"))
+                .andExpect(status().isBadRequest());
+    }
+}
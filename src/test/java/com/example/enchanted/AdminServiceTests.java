@@ -3,23 +3,46 @@ package com.example.enchanted;
 import com.example.enchanted.Pojo.Cart;
 import com.example.enchanted.Pojo.Category;
 import com.example.enchanted.Pojo.Customer;
+import com.example.enchanted.Pojo.CustomerSummary;
 import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductImportError;
+import com.example.enchanted.Pojo.ProductImportResult;
+import com.example.enchanted.Pojo.StockFeedResult;
 import com.example.enchanted.Repository.CustomerRepository;
 import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.CatalogVersion;
 import com.example.enchanted.Service.DefaultAdminService;
+import com.example.enchanted.Service.HotInventory;
+import com.example.enchanted.Service.ProductCache;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductImporter;
+import com.example.enchanted.Service.ProductsImportedEvent;
+import com.example.enchanted.Service.StockFeedAppliedEvent;
+import com.example.enchanted.Service.StockFeedIngester;
+import com.example.enchanted.Service.StockLevels;
+import com.example.enchanted.Service.ProductPriceChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -30,6 +53,27 @@ public class AdminServiceTests {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private HotInventory hotInventory;
+
+    @Mock
+    private ProductImporter productImporter;
+
+    @Mock
+    private StockFeedIngester stockFeedIngester;
+
+    @Mock
+    private StockLevels stockLevels;
+
     @InjectMocks
     private DefaultAdminService adminService;
 
@@ -111,7 +155,8 @@ public class AdminServiceTests {
         product2.setName("Product 2");
         product2.setAvailableQuantity(0);
 
-        when(productRepository.outOfStock()).thenReturn(Arrays.asList(product1, product2));
+        when(stockLevels.outOfStock()).thenReturn(Arrays.asList(1, 2));
+        when(productRepository.findProductsByIds(Arrays.asList(1, 2))).thenReturn(Arrays.asList(product2, product1));
 
         // Act
         List<Product> outOfStockProducts = adminService.outOfStockProducts();
@@ -119,14 +164,14 @@ public class AdminServiceTests {
         // Assert
         assertNotNull(outOfStockProducts, "The list should not be null.");
         assertEquals(2, outOfStockProducts.size(), "There should be two out-of-stock products.");
-        assertTrue(outOfStockProducts.contains(product1), "The list should contain product1.");
-        assertTrue(outOfStockProducts.contains(product2), "The list should contain product2.");
+        assertEquals(product1, outOfStockProducts.get(0), "The products should be in ID order.");
+        assertEquals(product2, outOfStockProducts.get(1), "The products should be in ID order.");
     }
 
     @Test
     public void testOutOfStockProducts_WhenNoProductsAreOutOfStock() {
         // Arrange
-        when(productRepository.outOfStock()).thenReturn(Arrays.asList());
+        when(stockLevels.outOfStock()).thenReturn(Arrays.asList());
 
         // Act
         List<Product> outOfStockProducts = adminService.outOfStockProducts();
@@ -134,39 +179,59 @@ public class AdminServiceTests {
         // Assert
         assertNotNull(outOfStockProducts, "The list should not be null.");
         assertTrue(outOfStockProducts.isEmpty(), "The list should be empty.");
+        verify(productRepository, never()).findProductsByIds(any());
     }
 
     @Test
-    public void testFindAllCustomers_WithCustomers() {
+    public void testLowStockProducts_ReadsTheTrackedProductsOfTheCategory() {
         // Arrange
-        Customer customer1 = new Customer();
-        customer1.setId(1);
-        Customer customer2 = new Customer();
-        customer2.setId(2);
-        List<Customer> customerList = Arrays.asList(customer1, customer2);
-        when(customerRepository.findAll()).thenReturn(customerList);
+        Product product = new Product(4, "Mascara", Category.EYES, "mascara", "black", 9.99, 2);
+        when(stockLevels.lowStock(Category.EYES)).thenReturn(Collections.singletonList(4));
+        when(productRepository.findProductsByIds(Collections.singletonList(4))).thenReturn(Collections.singletonList(product));
 
         // Act
-        List<Customer> resultList = adminService.findAllCustomers();
+        List<Product> lowStockProducts = adminService.lowStockProducts(Category.EYES);
 
         // Assert
-        assertNotNull(resultList, "The returned list should not be null.");
-        assertEquals(2, resultList.size(), "The list should contain two customers.");
-        assertTrue(resultList.containsAll(Arrays.asList(customer1, customer2)), "The list should contain the expected customers.");
+        assertEquals(Collections.singletonList(product), lowStockProducts);
     }
 
+    @Test
+    public void testFindCustomers_ReadsOnePageOfSummaries() {
+        // Arrange
+        List<CustomerSummary> summaries = Arrays.asList(new CustomerSummary(11, "John Doe", "john@example.com", 3),
+                new CustomerSummary(12, "Johanna", "jo@example.com", 4));
+        when(customerRepository.findCustomerSummaries(null, null, 10, PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(summaries, PageRequest.of(0, 2), true));
+
+        // Act
+        Slice<CustomerSummary> result = adminService.findCustomers(null, " ", 10, 2);
+
+        // Assert
+        assertEquals(summaries, result.getContent());
+        assertTrue(result.hasNext(), "A further page should be reported.");
+    }
 
     @Test
-    public void testFindAllCustomers_WithNoCustomers() {
+    public void testFindCustomers_EscapesWildcardsInFilters() {
         // Arrange
-        when(customerRepository.findAll()).thenReturn(Arrays.asList());
+        when(customerRepository.findCustomerSummaries(any(), any(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
 
         // Act
-        List<Customer> resultList = adminService.findAllCustomers();
+        adminService.findCustomers(" 50%_off! ", "jo", null, 50);
 
         // Assert
-        assertNotNull(resultList, "The returned list should not be null.");
-        assertTrue(resultList.isEmpty(), "The list should be empty.");
+        verify(customerRepository).findCustomerSummaries("50!%!_off!!", "jo", 0, PageRequest.of(0, 50));
+    }
+
+    @Test
+    public void testFindCustomers_LimitOutOfRangeThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> adminService.findCustomers(null, null, null, 201));
+        assertEquals("Limit must be between 1 and 200.", exception.getMessage());
+        verifyNoInteractions(customerRepository);
     }
 
     @Test
@@ -255,6 +320,60 @@ public class AdminServiceTests {
 
         // Assert
         verify(productRepository, times(1)).deleteById(existingProductId);
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertTrue(event.getValue().isDeleted());
+        assertEquals(existingProductId, event.getValue().getProductId());
+        verify(catalogVersion, times(1)).increment();
+    }
+
+    @Test
+    public void testEditProduct_PublishesSavedProduct() {
+        // Arrange
+        Product existingProduct = new Product(1, "Old Name", Category.LIPS, "lipstick", "red", 100.0, 10);
+        when(productRepository.findProductById(1)).thenReturn(existingProduct);
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        adminService.edit(1, "New Name", 150.0, 5);
+
+        // Assert
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        ProductChangedEvent event = (ProductChangedEvent) events.getAllValues().get(0);
+        assertFalse(event.isDeleted());
+        assertEquals("New Name", event.getProduct().getName());
+        assertEquals(150.0, event.getProduct().getPrice());
+        ProductPriceChangedEvent priceChanged = (ProductPriceChangedEvent) events.getAllValues().get(1);
+        assertEquals(1, priceChanged.getProductId());
+        assertEquals(100.0, priceChanged.getOldPrice());
+        assertEquals(150.0, priceChanged.getNewPrice());
+        verify(catalogVersion, times(1)).increment();
+    }
+
+    @Test
+    public void testEditProduct_SamePriceDoesNotReprice() {
+        // Arrange
+        Product existingProduct = new Product(1, "Old Name", Category.LIPS, "lipstick", "red", 100.0, 10);
+        when(productRepository.findProductById(1)).thenReturn(existingProduct);
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        adminService.edit(1, "New Name", 100.0, 5);
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+        verify(eventPublisher, never()).publishEvent(any(ProductPriceChangedEvent.class));
+    }
+
+    @Test
+    public void testEditProduct_NotFoundKeepsCatalogVersion() {
+        // Arrange
+        when(productRepository.findProductById(1)).thenReturn(null);
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> adminService.edit(1, "New Name", 150.0, 5));
+        verifyNoInteractions(catalogVersion);
     }
 
 
@@ -342,24 +461,71 @@ public class AdminServiceTests {
         assertEquals("Available quantity cannot be negative.", exception.getMessage());
     }
 
+    @Test
+    void testDisableHotInventory_Success() {
+        // Arrange
+        when(hotInventory.isHot(1)).thenReturn(true);
 
+        // Act
+        adminService.disableHotInventory(1);
 
+        // Assert
+        verify(hotInventory, times(1)).disable(1);
+    }
 
+    @Test
+    void testDisableHotInventory_ProductNotHot() {
+        // Arrange
+        when(hotInventory.isHot(1)).thenReturn(false);
 
+        // Act & Assert
+        Exception exception = assertThrows(EntityNotFoundException.class, () -> adminService.disableHotInventory(1));
+        assertEquals("Product with ID 1 is not in hot inventory mode.", exception.getMessage());
+        verify(hotInventory, never()).disable(any());
+    }
 
+    @Test
+    void testImportCsv_AnnouncesImportedProducts() throws Exception {
+        // Arrange
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        ProductImportResult imported = new ProductImportResult(3, 1, Collections.singletonList(new ProductImportError(4, "Price must be a number.")));
+        when(productImporter.importCsv(input)).thenReturn(imported);
 
+        // Act
+        ProductImportResult result = adminService.importCsv(input);
 
+        // Assert
+        assertSame(imported, result);
+        ArgumentCaptor<ProductsImportedEvent> event = ArgumentCaptor.forClass(ProductsImportedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(3, event.getValue().getCount());
+    }
 
+    @Test
+    void testImportNdjson_NothingImported() throws Exception {
+        // Arrange
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        when(productImporter.importNdjson(input)).thenReturn(new ProductImportResult(0, 2, Collections.emptyList()));
 
+        // Act
+        adminService.importNdjson(input);
 
+        // Assert
+        verifyNoInteractions(eventPublisher);
+    }
 
+    @Test
+    void testApplyStockFeed_AnnouncesChangedStock() throws Exception {
+        // Arrange
+        when(stockFeedIngester.ingest("stock.txt")).thenReturn(new StockFeedResult(10, 8, 1, 0, 1, Collections.emptyList(), 12));
 
+        // Act
+        StockFeedResult result = adminService.applyStockFeed("stock.txt");
 
-
-
-
-
-
-
-
+        // Assert
+        assertEquals(8, result.getUpdated());
+        ArgumentCaptor<StockFeedAppliedEvent> event = ArgumentCaptor.forClass(StockFeedAppliedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(8, event.getValue().getUpdated());
+    }
 }
@@ -0,0 +1,84 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Repository.ProductOrderRepository;
+import com.example.enchanted.Service.CartHoldExpiry;
+import com.example.enchanted.Service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CartHoldExpiryTests {
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+    @Mock
+    private CustomerService customerService;
+
+    private CartHoldExpiry expiry;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        expiry = new CartHoldExpiry(productOrderRepository, customerService, 30, 2);
+    }
+
+    @Test
+    public void testRelease_WalksCartsInBatches() {
+        // Arrange
+        Instant before = Instant.parse("2026-01-01T10:00:00Z");
+        when(productOrderRepository.findCartIdsReservedBefore(before, 0, PageRequest.of(0, 2))).thenReturn(Arrays.asList(3, 5));
+        when(productOrderRepository.findCartIdsReservedBefore(before, 5, PageRequest.of(0, 2))).thenReturn(Collections.singletonList(9));
+        when(customerService.releaseExpiredLines(anyInt(), eq(before))).thenReturn(2);
+
+        // Act
+        int released = expiry.release(before);
+
+        // Assert
+        assertEquals(6, released);
+        InOrder inOrder = inOrder(customerService);
+        inOrder.verify(customerService).releaseExpiredLines(3, before);
+        inOrder.verify(customerService).releaseExpiredLines(5, before);
+        inOrder.verify(customerService).releaseExpiredLines(9, before);
+        verifyNoMoreInteractions(customerService);
+    }
+
+    @Test
+    public void testReleaseExpired_ReleasesLinesOlderThanTheHold() {
+        // Arrange
+        when(productOrderRepository.findCartIdsReservedBefore(any(), eq(0), any())).thenReturn(Collections.emptyList());
+        Instant latest = Instant.now().minus(Duration.ofMinutes(30));
+
+        // Act
+        expiry.releaseExpired();
+
+        // Assert
+        verify(productOrderRepository).findCartIdsReservedBefore(
+                argThat(before -> !before.isBefore(latest) && before.isBefore(Instant.now().minus(Duration.ofMinutes(29)))),
+                eq(0), any());
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    public void testReleaseExpired_ZeroMinutesKeepsLines() {
+        // Arrange
+        expiry = new CartHoldExpiry(productOrderRepository, customerService, 0, 2);
+
+        // Act
+        expiry.releaseExpired();
+
+        // Assert
+        verifyNoInteractions(productOrderRepository, customerService);
+    }
+}
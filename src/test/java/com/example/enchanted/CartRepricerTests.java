@@ -0,0 +1,62 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Repository.CartRepository;
+import com.example.enchanted.Repository.ProductOrderRepository;
+import com.example.enchanted.Service.CartRepricer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CartRepricerTests {
+
+    @Mock
+    private ProductOrderRepository productOrderRepository;
+    @Mock
+    private CartRepository cartRepository;
+
+    private CartRepricer repricer;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        repricer = new CartRepricer(productOrderRepository, cartRepository, 2);
+    }
+
+    @Test
+    public void testReprice_WalksCartsInBatches() {
+        // Arrange
+        when(productOrderRepository.findCartIdsByProductId(7, 0, PageRequest.of(0, 2))).thenReturn(Arrays.asList(3, 5));
+        when(productOrderRepository.findCartIdsByProductId(7, 5, PageRequest.of(0, 2))).thenReturn(Collections.singletonList(9));
+
+        // Act
+        int repriced = repricer.reprice(7);
+
+        // Assert
+        assertEquals(3, repriced);
+        InOrder inOrder = inOrder(cartRepository);
+        inOrder.verify(cartRepository).recalculatePrices(Arrays.asList(3, 5));
+        inOrder.verify(cartRepository).recalculatePrices(Collections.singletonList(9));
+        verify(productOrderRepository, times(2)).findCartIdsByProductId(eq(7), anyInt(), any());
+        verifyNoMoreInteractions(cartRepository);
+    }
+
+    @Test
+    public void testReprice_NoCartsHoldProduct() {
+        // Arrange
+        when(productOrderRepository.findCartIdsByProductId(7, 0, PageRequest.of(0, 2))).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertEquals(0, repricer.reprice(7));
+        verifyNoInteractions(cartRepository);
+    }
+}
@@ -10,15 +10,21 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import javax.persistence.EntityNotFoundException;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -45,7 +51,7 @@ public class CustomerControllerTests {
         // Arrange
         List<Product> products = Arrays.asList(new Product(1, "Product1", null, "Type1", "Color1", 100.0, 10),
                 new Product(2, "Product2", null, "Type2", "Color2", 200.0, 20));
-        when(customerService.findAll()).thenReturn(products);
+        when(customerService.findAll(null, 50)).thenReturn(new SliceImpl<>(products));
 
         // Act & Assert
         mockMvc.perform(get("/findProducts")
@@ -65,13 +71,13 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[1].price").value(200.0))
                 .andExpect(jsonPath("$[1].availableQuantity").value(20));
 
-        verify(customerService, times(1)).findAll();
+        verify(customerService, times(1)).findAll(null, 50);
     }
 
     @Test
     public void testGetAll_NoProducts() throws Exception {
         // Arrange
-        when(customerService.findAll()).thenReturn(Arrays.asList());
+        when(customerService.findAll(null, 50)).thenReturn(new SliceImpl<>(Arrays.asList()));
 
         // Act & Assert
         mockMvc.perform(get("/findProducts")
@@ -79,20 +85,87 @@ public class CustomerControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(customerService, times(1)).findAll();
+        verify(customerService, times(1)).findAll(null, 50);
     }
 
     @Test
     public void testGetAll_ServiceThrowsException() throws Exception {
         // Arrange
-        when(customerService.findAll()).thenThrow(new RuntimeException("Database error"));
+        when(customerService.findAll(null, 50)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         mockMvc.perform(get("/findProducts")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError());
 
-        verify(customerService, times(1)).findAll();
+        verify(customerService, times(1)).findAll(null, 50);
+    }
+
+    @Test
+    public void testGetAll_ReturnsNextCursorWhenMoreProductsExist() throws Exception {
+        // Arrange
+        List<Product> products = Arrays.asList(new Product(1, "Product1", null, "Type1", "Color1", 100.0, 10),
+                new Product(2, "Product2", null, "Type2", "Color2", 200.0, 20));
+        when(customerService.findAll(null, 2)).thenReturn(new SliceImpl<>(products, PageRequest.of(0, 2), true));
+
+        // Act & Assert
+        mockMvc.perform(get("/findProducts").param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string(CustomerController.NEXT_CURSOR_HEADER, ProductCursor.encode(2)));
+    }
+
+    @Test
+    public void testGetAll_ContinuesAfterCursor() throws Exception {
+        // Arrange
+        List<Product> products = Arrays.asList(new Product(3, "Product3", null, "Type3", "Color3", 300.0, 30));
+        when(customerService.findAll(2, 2)).thenReturn(new SliceImpl<>(products, PageRequest.of(0, 2), false));
+
+        // Act & Assert
+        mockMvc.perform(get("/findProducts").param("limit", "2").param("after", ProductCursor.encode(2))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(header().doesNotExist(CustomerController.NEXT_CURSOR_HEADER));
+
+        verify(customerService, times(1)).findAll(2, 2);
+    }
+
+    @Test
+    public void testGetAll_InvalidCursor() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/findProducts").param("after", "not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(customerService);
+    }
+
+    @Test
+    public void testStreamAll_WritesOneProductPerLine() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Product> action = invocation.getArgument(0);
+            action.accept(new Product(1, "Product1", null, "Type1", "Color1", 100.0, 10));
+            action.accept(new Product(2, "Product2", null, "Type2", "Color2", 200.0, 20));
+            return null;
+        }).when(customerService).streamAll(any());
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/findProducts/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, objectMapper.readValue(lines[0], Product.class).getId());
+        assertEquals("Product2", objectMapper.readValue(lines[1], Product.class).getName());
     }
 
     @Test
@@ -161,7 +234,7 @@ public class CustomerControllerTests {
                 new Product(1, "Product1", Category.FACE, "Type1", "Color1", 100.0, 10),
                 new Product(2, "Product2", Category.FACE, "Type2", "Color2", 200.0, 20)
         );
-        when(customerService.findProductByCategory(Category.FACE)).thenReturn(products);
+        when(customerService.findProductByCategory(Category.FACE, null, 50)).thenReturn(new SliceImpl<>(products));
 
         // Act & Assert
         mockMvc.perform(get("/productsByCategory/FACE")
@@ -183,13 +256,13 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[1].price").value(200.0))
                 .andExpect(jsonPath("$[1].availableQuantity").value(20));
 
-        verify(customerService, times(1)).findProductByCategory(Category.FACE);
+        verify(customerService, times(1)).findProductByCategory(Category.FACE, null, 50);
     }
 
     @Test
     public void testFindProductByCategory_NoProducts() throws Exception {
         // Arrange
-        when(customerService.findProductByCategory(Category.FACE)).thenReturn(Arrays.asList());
+        when(customerService.findProductByCategory(Category.FACE, null, 50)).thenReturn(new SliceImpl<>(Arrays.asList()));
 
         // Act & Assert
         mockMvc.perform(get("/productsByCategory/FACE")
@@ -197,20 +270,20 @@ public class CustomerControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(customerService, times(1)).findProductByCategory(Category.FACE);
+        verify(customerService, times(1)).findProductByCategory(Category.FACE, null, 50);
     }
 
     @Test
     public void testFindProductByCategory_ServiceThrowsException() throws Exception {
         // Arrange
-        when(customerService.findProductByCategory(Category.FACE)).thenThrow(new RuntimeException("Database error"));
+        when(customerService.findProductByCategory(Category.FACE, null, 50)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         mockMvc.perform(get("/productsByCategory/FACE")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError());
 
-        verify(customerService, times(1)).findProductByCategory(Category.FACE);
+        verify(customerService, times(1)).findProductByCategory(Category.FACE, null, 50);
     }
 
     @Test
@@ -220,7 +293,7 @@ public class CustomerControllerTests {
                 new Product(1, "Product1", null, "Type1", "Red", 100.0, 10),
                 new Product(2, "Product2", null, "Type2", "Red", 200.0, 20)
         );
-        when(customerService.findProductByColor("Red")).thenReturn(products);
+        when(customerService.findProductByColor("Red", null, 50)).thenReturn(new SliceImpl<>(products));
 
         // Act & Assert
         mockMvc.perform(get("/productsByColor/Red")
@@ -240,13 +313,13 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[1].price").value(200.0))
                 .andExpect(jsonPath("$[1].availableQuantity").value(20));
 
-        verify(customerService, times(1)).findProductByColor("Red");
+        verify(customerService, times(1)).findProductByColor("Red", null, 50);
     }
 
     @Test
     public void testFindProductByColor_NoProducts() throws Exception {
         // Arrange
-        when(customerService.findProductByColor("Red")).thenReturn(Arrays.asList());
+        when(customerService.findProductByColor("Red", null, 50)).thenReturn(new SliceImpl<>(Arrays.asList()));
 
         // Act & Assert
         mockMvc.perform(get("/productsByColor/Red")
@@ -254,20 +327,20 @@ public class CustomerControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(customerService, times(1)).findProductByColor("Red");
+        verify(customerService, times(1)).findProductByColor("Red", null, 50);
     }
 
     @Test
     public void testFindProductByColor_ServiceThrowsException() throws Exception {
         // Arrange
-        when(customerService.findProductByColor("Red")).thenThrow(new RuntimeException("Database error"));
+        when(customerService.findProductByColor("Red", null, 50)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         mockMvc.perform(get("/productsByColor/Red")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError());
 
-        verify(customerService, times(1)).findProductByColor("Red");
+        verify(customerService, times(1)).findProductByColor("Red", null, 50);
     }
 
     @Test
@@ -277,7 +350,7 @@ public class CustomerControllerTests {
                 new Product(1, "Product1", null, "Type1", "Color1", 100.0, 10),
                 new Product(2, "Product2", null, "Type2", "Color2", 100.0, 20)
         );
-        when(customerService.findProductByPrice(100.0)).thenReturn(products);
+        when(customerService.findProductByPrice(100.0, null, 50)).thenReturn(new SliceImpl<>(products));
 
         // Act & Assert
         mockMvc.perform(get("/productsByPrice/100.0")
@@ -297,13 +370,13 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[1].color").value("Color2"))
                 .andExpect(jsonPath("$[1].availableQuantity").value(20));
 
-        verify(customerService, times(1)).findProductByPrice(100.0);
+        verify(customerService, times(1)).findProductByPrice(100.0, null, 50);
     }
 
     @Test
     public void testFindProductByPrice_NoProducts() throws Exception {
         // Arrange
-        when(customerService.findProductByPrice(100.0)).thenReturn(Arrays.asList());
+        when(customerService.findProductByPrice(100.0, null, 50)).thenReturn(new SliceImpl<>(Arrays.asList()));
 
         // Act & Assert
         mockMvc.perform(get("/productsByPrice/100.0")
@@ -311,7 +384,7 @@ public class CustomerControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(customerService, times(1)).findProductByPrice(100.0);
+        verify(customerService, times(1)).findProductByPrice(100.0, null, 50);
     }
 
     @Test
@@ -325,13 +398,13 @@ public class CustomerControllerTests {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().string("Price must be a positive value."));
 
-        verify(customerService, never()).findProductByPrice(invalidPrice);
+        verify(customerService, never()).findProductByPrice(eq(invalidPrice), any(), anyInt());
     }
 
     @Test
     public void testFindProductByPrice_ServiceThrowsException() throws Exception {
         // Arrange
-        when(customerService.findProductByPrice(100.0)).thenThrow(new RuntimeException("Database error"));
+        when(customerService.findProductByPrice(100.0, null, 50)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         mockMvc.perform(get("/productsByPrice/100.0")
@@ -339,7 +412,134 @@ public class CustomerControllerTests {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string("Database error"));
 
-        verify(customerService, times(1)).findProductByPrice(100.0);
+        verify(customerService, times(1)).findProductByPrice(100.0, null, 50);
+    }
+
+    @Test
+    public void testFindProductByPriceRange_Success() throws Exception {
+        // Arrange
+        List<Product> products = Arrays.asList(new Product(2, "Product2", Category.FACE, "Type2", "Color2", 120.0, 20),
+                new Product(1, "Product1", Category.FACE, "Type1", "Color1", 150.0, 10));
+        when(customerService.findProductByPriceRange(eq(100.0), eq(200.0), eq(Category.FACE), isNull(), eq(2)))
+                .thenReturn(new SliceImpl<>(products, PageRequest.of(0, 2), true));
+
+        // Act & Assert
+        mockMvc.perform(get("/productsByPrice")
+                        .param("min", "100").param("max", "200").param("category", "FACE").param("limit", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(header().string(CustomerController.NEXT_CURSOR_HEADER, new PriceCursor(150.0, 1).encode()));
+    }
+
+    @Test
+    public void testFindProductByPriceRange_InvalidRange() throws Exception {
+        // Arrange
+        when(customerService.findProductByPriceRange(eq(200.0), eq(100.0), isNull(), isNull(), eq(50)))
+                .thenThrow(new IllegalArgumentException("Maximum price cannot be lower than minimum price."));
+
+        // Act & Assert
+        mockMvc.perform(get("/productsByPrice").param("min", "200").param("max", "100")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Maximum price cannot be lower than minimum price."));
+    }
+
+    @Test
+    public void testSearch_BindsRepeatedFilters() throws Exception {
+        // Arrange
+        Map<String, Map<String, Integer>> facets = Collections.singletonMap("category", Collections.singletonMap("LIPS", 1));
+        ProductSearchResult searchResult = new ProductSearchResult(
+                Collections.singletonList(new Product(1, "Product1", Category.LIPS, "Type1", "red", 100.0, 10)), 1, null, facets);
+        when(customerService.search(any(ProductSearchInput.class), isNull(), eq(50))).thenReturn(searchResult);
+
+        // Act & Assert
+        mockMvc.perform(get("/products/search")
+                        .param("category", "LIPS").param("color", "red").param("color", "pink").param("price", "0-100")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.products[0].id").value(1))
+                .andExpect(jsonPath("$.facets.category.LIPS").value(1));
+
+        verify(customerService).search(argThat(input -> input.getCategory().equals(Collections.singletonList(Category.LIPS))
+                && input.getColor().equals(Arrays.asList("red", "pink"))
+                && input.getPrice().equals(Collections.singletonList("0-100"))), isNull(), eq(50));
+    }
+
+    @Test
+    public void testSearchText_Success() throws Exception {
+        // Arrange
+        List<Product> products = Arrays.asList(new Product(4, "Matte Lipstick", Category.LIPS, "lipstick", "red", 250.0, 10));
+        when(customerService.searchText("lipstick", 20)).thenReturn(products);
+
+        // Act & Assert
+        mockMvc.perform(get("/products/text").param("q", "lipstick")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Matte Lipstick"));
+    }
+
+    @Test
+    public void testGetAll_ReturnsETagOfCatalogVersion() throws Exception {
+        // Arrange
+        when(customerService.catalogVersion()).thenReturn("k1-7");
+        when(customerService.findAll(null, 50)).thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        // Act
+        String etag = mockMvc.perform(get("/findProducts"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String otherEtag = mockMvc.perform(get("/findProducts").param("limit", "50"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Assert
+        assertTrue(etag.startsWith("\"k1-7-"));
+        assertNotEquals(etag, otherEtag);
+    }
+
+    @Test
+    public void testGetAll_MatchingETagSkipsQuery() throws Exception {
+        // Arrange
+        when(customerService.catalogVersion()).thenReturn("k1-7");
+        when(customerService.findAll(null, 50)).thenReturn(new SliceImpl<>(Collections.emptyList()));
+        String etag = mockMvc.perform(get("/findProducts")).andReturn().getResponse().getHeader("ETag");
+        clearInvocations(customerService);
+
+        // Act & Assert
+        mockMvc.perform(get("/findProducts").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(customerService, never()).findAll(any(), anyInt());
+    }
+
+    @Test
+    public void testGetAll_StaleETagRunsQuery() throws Exception {
+        // Arrange
+        when(customerService.catalogVersion()).thenReturn("k1-7");
+        when(customerService.findAll(null, 50)).thenReturn(new SliceImpl<>(Collections.emptyList()));
+        String etag = mockMvc.perform(get("/findProducts")).andReturn().getResponse().getHeader("ETag");
+        when(customerService.catalogVersion()).thenReturn("k1-8");
+
+        // Act & Assert
+        mockMvc.perform(get("/findProducts").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        verify(customerService, times(2)).findAll(null, 50);
+    }
+
+    @Test
+    public void testAutocomplete_Success() throws Exception {
+        // Arrange
+        when(customerService.autocomplete("lip", 10)).thenReturn(Arrays.asList("Lip Gloss", "Matte Lipstick"));
+
+        // Act & Assert
+        mockMvc.perform(get("/products/autocomplete").param("prefix", "lip")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Lip Gloss"))
+                .andExpect(jsonPath("$[1]").value("Matte Lipstick"));
     }
 
     @Test
@@ -349,7 +549,7 @@ public class CustomerControllerTests {
                 new Product(1, "Product1", null, "Cosmetic", "Red", 100.0, 10),
                 new Product(2, "Product2", null, "Cosmetic", "Blue", 200.0, 20)
         );
-        when(customerService.findProductByType("Cosmetic")).thenReturn(products);
+        when(customerService.findProductByType("Cosmetic", null, 50)).thenReturn(new SliceImpl<>(products));
 
         // Act & Assert
         mockMvc.perform(get("/productsByType/Cosmetic")
@@ -369,13 +569,13 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[1].price").value(200.0))
                 .andExpect(jsonPath("$[1].availableQuantity").value(20));
 
-        verify(customerService, times(1)).findProductByType("Cosmetic");
+        verify(customerService, times(1)).findProductByType("Cosmetic", null, 50);
     }
 
     @Test
     public void testFindProductByType_NoProducts() throws Exception {
         // Arrange
-        when(customerService.findProductByType("Cosmetic")).thenReturn(Arrays.asList());
+        when(customerService.findProductByType("Cosmetic", null, 50)).thenReturn(new SliceImpl<>(Arrays.asList()));
 
         // Act & Assert
         mockMvc.perform(get("/productsByType/Cosmetic")
@@ -383,13 +583,13 @@ public class CustomerControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(customerService, times(1)).findProductByType("Cosmetic");
+        verify(customerService, times(1)).findProductByType("Cosmetic", null, 50);
     }
 
     @Test
     public void testFindProductByType_ServiceThrowsException() throws Exception {
         // Arrange
-        when(customerService.findProductByType("Cosmetic")).thenThrow(new RuntimeException("Database error"));
+        when(customerService.findProductByType("Cosmetic", null, 50)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         mockMvc.perform(get("/productsByType/Cosmetic")
@@ -397,7 +597,7 @@ public class CustomerControllerTests {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string("Database error"));
 
-        verify(customerService, times(1)).findProductByType("Cosmetic");
+        verify(customerService, times(1)).findProductByType("Cosmetic", null, 50);
     }
 
     @Test
@@ -407,7 +607,7 @@ public class CustomerControllerTests {
                 new Product(1, "Product1", Category.FACE, "Type1", "Red", 100.0, 10),
                 new Product(2, "Product2", Category.FACE, "Type2", "Red", 200.0, 20)
         );
-        when(customerService.findProductByCategoryAndColor(Category.FACE, "Red")).thenReturn(products);
+        when(customerService.findProductByCategoryAndColor(Category.FACE, "Red", null, 50)).thenReturn(new SliceImpl<>(products));
 
         // Act & Assert
         mockMvc.perform(get("/products/FACE/Red")
@@ -429,13 +629,13 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[1].price").value(200.0))
                 .andExpect(jsonPath("$[1].availableQuantity").value(20));
 
-        verify(customerService, times(1)).findProductByCategoryAndColor(Category.FACE, "Red");
+        verify(customerService, times(1)).findProductByCategoryAndColor(Category.FACE, "Red", null, 50);
     }
 
     @Test
     public void testFindProductByCategoryAndColor_NoProducts() throws Exception {
         // Arrange
-        when(customerService.findProductByCategoryAndColor(Category.FACE, "Red")).thenReturn(Arrays.asList());
+        when(customerService.findProductByCategoryAndColor(Category.FACE, "Red", null, 50)).thenReturn(new SliceImpl<>(Arrays.asList()));
 
         // Act & Assert
         mockMvc.perform(get("/products/FACE/Red")
@@ -443,13 +643,13 @@ public class CustomerControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(customerService, times(1)).findProductByCategoryAndColor(Category.FACE, "Red");
+        verify(customerService, times(1)).findProductByCategoryAndColor(Category.FACE, "Red", null, 50);
     }
 
     @Test
     public void testFindProductByCategoryAndColor_ServiceThrowsException() throws Exception {
         // Arrange
-        when(customerService.findProductByCategoryAndColor(Category.FACE, "Red")).thenThrow(new RuntimeException("Database error"));
+        when(customerService.findProductByCategoryAndColor(Category.FACE, "Red", null, 50)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         mockMvc.perform(get("/products/FACE/Red")
@@ -457,7 +657,7 @@ public class CustomerControllerTests {
                 .andExpect(status().isInternalServerError())
                 .andExpect(content().string("Database error"));
 
-        verify(customerService, times(1)).findProductByCategoryAndColor(Category.FACE, "Red");
+        verify(customerService, times(1)).findProductByCategoryAndColor(Category.FACE, "Red", null, 50);
     }
 
     @Test
@@ -684,8 +884,8 @@ public class CustomerControllerTests {
     public void testViewCart_Success() throws Exception {
         // Arrange
         Integer cartId = 1;
-        ProductDto product1 = new ProductDto(new Product(1,"Product 1", Category.FACE, "Type 1", "Color 1", 100.0, 10));
-        ProductDto product2 = new ProductDto(new Product(2,"Product 2", Category.EYES, "Type 2", "Color 2", 200.0, 5));
+        ProductDto product1 = new ProductDto("Product 1", 100.0, "Type 1", Category.FACE, "Color 1", 3);
+        ProductDto product2 = new ProductDto("Product 2", 200.0, "Type 2", Category.EYES, "Color 2", 1);
         List<ProductDto> productsInCart = Arrays.asList(product1, product2);
 
         when(customerService.viewProductsInCart(cartId)).thenReturn(productsInCart);
@@ -699,6 +899,7 @@ public class CustomerControllerTests {
                 .andExpect(jsonPath("$[0].type").value("Type 1"))
                 .andExpect(jsonPath("$[0].color").value("Color 1"))
                 .andExpect(jsonPath("$[0].price").value(100.0))
+                .andExpect(jsonPath("$[0].amount").value(3))
                 .andExpect(jsonPath("$[1].name").value("Product 2"))
                 .andExpect(jsonPath("$[1].category").value("EYES"))
                 .andExpect(jsonPath("$[1].type").value("Type 2"))
@@ -800,6 +1001,62 @@ public class CustomerControllerTests {
         verify(customerService, times(1)).totalPrice(cartId);
     }
 
+    @Test
+    public void testCheckout_Success() throws Exception {
+        // Arrange
+        CustomerOrder order = new CustomerOrder(1, 70.0, Instant.parse("2024-05-01T10:00:00Z"))
+                .withLines(Arrays.asList(new OrderLine(9, 3, "Lipstick", 20.0, 2), new OrderLine(9, 5, "Mascara", 30.0, 1)));
+        when(customerService.checkout(1)).thenReturn(order);
+
+        // Act & Assert
+        mockMvc.perform(post("/checkout/{cartId}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cartId").value(1))
+                .andExpect(jsonPath("$.total").value(70.0))
+                .andExpect(jsonPath("$.lines.length()").value(2))
+                .andExpect(jsonPath("$.lines[0].productName").value("Lipstick"))
+                .andExpect(jsonPath("$.lines[0].amount").value(2));
+    }
+
+    @Test
+    public void testCheckout_CartNotFound() throws Exception {
+        // Arrange
+        when(customerService.checkout(99)).thenThrow(new EntityNotFoundException("Cart with ID 99 not found."));
+
+        // Act & Assert
+        mockMvc.perform(post("/checkout/{cartId}", 99))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testAddProductsToCart_ReturnsLineResults() throws Exception {
+        // Arrange
+        CartLinesResult result = new CartLinesResult(Arrays.asList(CartLineResult.added(3, 2),
+                CartLineResult.rejected(99, 1, "Product not found.")), 40.0);
+        when(customerService.addProductsToCart(eq(1), anyList())).thenReturn(result);
+        CartLinesInput input = new CartLinesInput(Arrays.asList(new CartLineInput(3, 2), new CartLineInput(99, 1)));
 
+        // Act & Assert
+        mockMvc.perform(post("/addProductsToCart/{cartId}", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines[0].added").value(true))
+                .andExpect(jsonPath("$.lines[1].added").value(false))
+                .andExpect(jsonPath("$.lines[1].message").value("Product not found."))
+                .andExpect(jsonPath("$.totalPrice").value(40.0));
+    }
 
+    @Test
+    public void testReplaceCart_CartNotFound() throws Exception {
+        // Arrange
+        when(customerService.replaceCart(eq(99), anyList())).thenThrow(new EntityNotFoundException("Cart with ID 99 not found."));
+        CartLinesInput input = new CartLinesInput(Collections.singletonList(new CartLineInput(3, 2)));
+
+        // Act & Assert
+        mockMvc.perform(put("/replaceCart/{cartId}", 99)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -2,27 +2,45 @@ package com.example.enchanted;
 
 import com.example.enchanted.Pojo.*;
 import com.example.enchanted.Repository.CartRepository;
+import com.example.enchanted.Repository.CustomerOrderRepository;
 import com.example.enchanted.Repository.CustomerRepository;
 import com.example.enchanted.Repository.ProductOrderRepository;
 import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.CatalogSnapshot;
+import com.example.enchanted.Service.CatalogVersion;
 import com.example.enchanted.Service.DefaultCustomerService;
+import com.example.enchanted.Service.HotInventory;
+import com.example.enchanted.Service.ProductAutocomplete;
+import com.example.enchanted.Service.ProductCatalog;
+import com.example.enchanted.Service.ProductChangeStream;
+import com.example.enchanted.Service.ProductStockChangedEvent;
+import com.example.enchanted.Service.ProductTextIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 
 import javax.persistence.EntityNotFoundException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -48,10 +66,29 @@ public class CustomerServiceTests {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private CustomerOrderRepository customerOrderRepository;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private ProductTextIndex productTextIndex;
+    @Mock
+    private ProductAutocomplete productAutocomplete;
+    @Mock
+    private CatalogVersion catalogVersion;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private HotInventory hotInventory;
+    @Mock
+    private ProductChangeStream productChangeStream;
+
     @BeforeMethod
     public void initMocks(){
         MockitoAnnotations.openMocks(this);
-        sut = new DefaultCustomerService(productRepository, productOrderRepository, cartRepository, customerRepository);
+        sut = new DefaultCustomerService(productRepository, productOrderRepository, cartRepository, customerRepository, customerOrderRepository, productCatalog, productTextIndex, productAutocomplete, catalogVersion, eventPublisher, hotInventory, productChangeStream);
     }
 
     @Test
@@ -64,10 +101,10 @@ public class CustomerServiceTests {
         allProducts.add(new Product(3,"maybelline",Category.EYES,"mascara","blue",670.0,28));
         allProducts.add(new Product(4,"dior",Category.LIPS,"lipOil","violet",2500.0,18));
 
-        when(productRepository.findAll()).thenReturn(allProducts);
+        when(productRepository.findProductsAfter(eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(allProducts));
 
         //act
-        List<Product> result = sut.findAll();
+        List<Product> result = sut.findAll(null, 50).getContent();
 
         //assert
         Assert.assertNotNull(result);
@@ -78,10 +115,10 @@ public class CustomerServiceTests {
     @Test
     public void testFindAll_ReturnsEmptyListWhenNoProducts() {
         // Arrange
-        when(productRepository.findAll()).thenReturn(new ArrayList<>());
+        when(productRepository.findProductsAfter(eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Act
-        List<Product> result = sut.findAll();
+        List<Product> result = sut.findAll(null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -91,11 +128,11 @@ public class CustomerServiceTests {
     @Test
     public void testFindAll_RepositoryThrowsException() {
         // Arrange
-        when(productRepository.findAll()).thenThrow(new RuntimeException("Database error"));
+        when(productRepository.findProductsAfter(eq(0), any(Pageable.class))).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            sut.findAll();
+            sut.findAll(null, 50);
         });
 
         assertEquals("Database error", exception.getMessage());
@@ -150,10 +187,10 @@ public class CustomerServiceTests {
         products.add(new Product(1, "lipstick", category, "lipstick", "red", 250.0, 10));
         products.add(new Product(2, "lip gloss", category, "lip gloss", "pink", 300.0, 15));
 
-        when(productRepository.findProductByCategory(category)).thenReturn(products);
+        when(productRepository.findProductByCategoryAfter(eq(category), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(products));
 
         // Act
-        List<Product> result = sut.findProductByCategory(category);
+        List<Product> result = sut.findProductByCategory(category, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -165,10 +202,10 @@ public class CustomerServiceTests {
     public void testFindProductByCategory_NoProductsFound() {
         // Arrange
         Category category = Category.LIPS;
-        when(productRepository.findProductByCategory(category)).thenReturn(new ArrayList<>());
+        when(productRepository.findProductByCategoryAfter(eq(category), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Act
-        List<Product> result = sut.findProductByCategory(category);
+        List<Product> result = sut.findProductByCategory(category, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -179,7 +216,7 @@ public class CustomerServiceTests {
     public void testFindProductByCategory_NullCategoryThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByCategory(null);
+            sut.findProductByCategory(null, null, 50);
         });
 
         assertEquals("Category cannot be null.", exception.getMessage());
@@ -201,10 +238,10 @@ public class CustomerServiceTests {
                 .filter(product -> product.getColor().equals(color))
                 .collect(Collectors.toList());
 
-        when(productRepository.findProductByColor(color)).thenReturn(filteredProducts);
+        when(productRepository.findProductByColorAfter(eq(color), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(filteredProducts));
 
         //act
-        List<Product> result = sut.findProductByColor(color);
+        List<Product> result = sut.findProductByColor(color, null, 50).getContent();
 
         //assert
         Assert.assertNotNull(result);
@@ -218,10 +255,10 @@ public class CustomerServiceTests {
     public void testFindProductByColor_NoProductsFound() {
         // Arrange
         String color = "blue";
-        when(productRepository.findProductByColor(color)).thenReturn(new ArrayList<>());
+        when(productRepository.findProductByColorAfter(eq(color), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Act
-        List<Product> result = sut.findProductByColor(color);
+        List<Product> result = sut.findProductByColor(color, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -232,7 +269,7 @@ public class CustomerServiceTests {
     public void testFindProductByColor_NullColorThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByColor(null);
+            sut.findProductByColor(null, null, 50);
         });
 
         assertEquals("Color cannot be null or empty.", exception.getMessage());
@@ -242,7 +279,7 @@ public class CustomerServiceTests {
     public void testFindProductByColor_EmptyColorThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByColor("");
+            sut.findProductByColor("", null, 50);
         });
 
         assertEquals("Color cannot be null or empty.", exception.getMessage());
@@ -252,7 +289,7 @@ public class CustomerServiceTests {
     public void testFindProductByColor_BlankColorThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByColor("   ");
+            sut.findProductByColor("   ", null, 50);
         });
 
         assertEquals("Color cannot be null or empty.", exception.getMessage());
@@ -266,10 +303,10 @@ public class CustomerServiceTests {
         products.add(new Product(1, "Product 1", Category.EYES, "type1", "color1", price, 10));
         products.add(new Product(2, "Product 2", Category.FACE, "type2", "color2", price, 15));
 
-        when(productRepository.findProductByPrice(price)).thenReturn(products);
+        when(productRepository.findProductByPriceAfter(eq(price), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(products));
 
         // Act
-        List<Product> result = sut.findProductByPrice(price);
+        List<Product> result = sut.findProductByPrice(price, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -281,10 +318,10 @@ public class CustomerServiceTests {
     public void testFindProductByPrice_NoProductsFound() {
         // Arrange
         double price = 299.99;
-        when(productRepository.findProductByPrice(price)).thenReturn(new ArrayList<>());
+        when(productRepository.findProductByPriceAfter(eq(price), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Act
-        List<Product> result = sut.findProductByPrice(price);
+        List<Product> result = sut.findProductByPrice(price, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -296,7 +333,7 @@ public class CustomerServiceTests {
     public void testFindProductByPrice_NegativePriceThrowsException(double price) {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByPrice(price);
+            sut.findProductByPrice(price, null, 50);
         });
 
         assertEquals("Price cannot be negative.", exception.getMessage());
@@ -309,10 +346,10 @@ public class CustomerServiceTests {
         products.add(new Product(1, "Product 1", Category.FACE, type, "beige", 580.0, 10));
         products.add(new Product(2, "Product 2", Category.FACE, type, "light", 620.0, 15));
 
-        when(productRepository.findProductByType(type)).thenReturn(products);
+        when(productRepository.findProductByTypeAfter(eq(type), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(products));
 
         // Act
-        List<Product> result = sut.findProductByType(type);
+        List<Product> result = sut.findProductByType(type, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -324,10 +361,10 @@ public class CustomerServiceTests {
     public void testFindProductByType_NoProductsFound() {
         // Arrange
         String type = "blush";
-        when(productRepository.findProductByType(type)).thenReturn(new ArrayList<>());
+        when(productRepository.findProductByTypeAfter(eq(type), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Act
-        List<Product> result = sut.findProductByType(type);
+        List<Product> result = sut.findProductByType(type, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -339,7 +376,7 @@ public class CustomerServiceTests {
     public void testFindProductByType_EmptyTypeThrowsException(String type) {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByType(type);
+            sut.findProductByType(type, null, 50);
         });
 
         assertEquals("Type cannot be null or empty.", exception.getMessage());
@@ -349,7 +386,7 @@ public class CustomerServiceTests {
     public void testFindProductByType_NullTypeThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByType(null);
+            sut.findProductByType(null, null, 50);
         });
 
         assertEquals("Type cannot be null or empty.", exception.getMessage());
@@ -364,10 +401,10 @@ public class CustomerServiceTests {
         products.add(new Product(1, "lipstick", category, "lipstick", color, 250.0, 10));
         products.add(new Product(2, "lip gloss", category, "lip gloss", color, 300.0, 15));
 
-        when(productRepository.findProductByCategoryAndColor(category, color)).thenReturn(products);
+        when(productRepository.findProductByCategoryAndColorAfter(eq(category), eq(color), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(products));
 
         // Act
-        List<Product> result = sut.findProductByCategoryAndColor(category, color);
+        List<Product> result = sut.findProductByCategoryAndColor(category, color, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
@@ -380,22 +417,158 @@ public class CustomerServiceTests {
         // Arrange
         Category category = Category.LIPS;
         String color = "red";
-        when(productRepository.findProductByCategoryAndColor(category, color)).thenReturn(new ArrayList<>());
+        when(productRepository.findProductByCategoryAndColorAfter(eq(category), eq(color), eq(0), any(Pageable.class))).thenReturn(new SliceImpl<>(new ArrayList<>()));
 
         // Act
-        List<Product> result = sut.findProductByCategoryAndColor(category, color);
+        List<Product> result = sut.findProductByCategoryAndColor(category, color, null, 50).getContent();
 
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    public void testFindProductByCategory_ServedFromCatalog() {
+        // Arrange
+        Product lipstick = new Product(1, "lipstick", Category.LIPS, "lipstick", "red", 250.0, 10);
+        Product mascara = new Product(2, "mascara", Category.EYES, "mascara", "black", 300.0, 15);
+        when(productCatalog.isEnabled()).thenReturn(true);
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(Arrays.asList(lipstick, mascara)));
+
+        // Act
+        List<Product> result = sut.findProductByCategory(Category.LIPS, null, 50).getContent();
+
+        // Assert
+        assertEquals(Collections.singletonList(lipstick), result);
+        verify(productRepository, never()).findProductByCategoryAfter(any(), anyInt(), any());
+    }
+
+    @Test
+    public void testFindProductByCategoryAndColor_ServedFromCatalog() {
+        // Arrange
+        Product red = new Product(1, "lipstick", Category.LIPS, "lipstick", "Red", 250.0, 10);
+        Product pink = new Product(2, "lip gloss", Category.LIPS, "lip gloss", "pink", 300.0, 15);
+        Product redBlush = new Product(3, "blush", Category.FACE, "blush", "red", 200.0, 5);
+        when(productCatalog.isEnabled()).thenReturn(true);
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(Arrays.asList(red, pink, redBlush)));
+
+        // Act
+        List<Product> result = sut.findProductByCategoryAndColor(Category.LIPS, "red", null, 50).getContent();
+
+        // Assert
+        assertEquals(Collections.singletonList(red), result);
+        verify(productRepository, never()).findProductByCategoryAndColorAfter(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void testFindAllPage_ContinuesAfterCursorFromCatalog() {
+        // Arrange
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            products.add(new Product(id, "product" + id, Category.FACE, "foundation", "beige", 100.0, 10));
+        }
+        when(productCatalog.isEnabled()).thenReturn(true);
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(products));
+
+        // Act
+        Slice<Product> first = sut.findAll(null, 2);
+        Slice<Product> last = sut.findAll(4, 2);
+
+        // Assert
+        assertEquals(Arrays.asList(1, 2), first.getContent().stream().map(Product::getId).collect(Collectors.toList()));
+        assertTrue(first.hasNext());
+        assertEquals(Collections.singletonList(5), last.getContent().stream().map(Product::getId).collect(Collectors.toList()));
+        assertFalse(last.hasNext());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    public void testFindProductByColorPage_UsesKeysetQueryWhenCatalogDisabled() {
+        // Arrange
+        Slice<Product> page = new SliceImpl<>(Collections.singletonList(new Product(7, "lipstick", Category.LIPS, "lipstick", "red", 250.0, 10)));
+        when(productRepository.findProductByColorAfter(eq("red"), eq(6), any(Pageable.class))).thenReturn(page);
+
+        // Act
+        Slice<Product> result = sut.findProductByColor("red", 6, 10);
+
+        // Assert
+        assertSame(page, result);
+    }
+
+    @Test
+    public void testFindProductByPriceRange_MaxBelowMinThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sut.findProductByPriceRange(200.0, 100.0, null, null, 10);
+        });
+
+        assertEquals("Maximum price cannot be lower than minimum price.", exception.getMessage());
+    }
+
+    @Test
+    public void testFindProductByPriceRange_UsesIndexedQueryWhenCatalogDisabled() {
+        // Arrange
+        Slice<Product> page = new SliceImpl<>(Collections.singletonList(new Product(3, "mascara", Category.EYES, "mascara", "black", 150.0, 10)));
+        when(productRepository.findProductByCategoryAndPriceRange(eq(Category.EYES), eq(100.0), eq(200.0), eq(120.0), eq(2), any(Pageable.class))).thenReturn(page);
+
+        // Act
+        Slice<Product> result = sut.findProductByPriceRange(100.0, 200.0, Category.EYES, new PriceCursor(120.0, 2), 10);
+
+        // Assert
+        assertSame(page, result);
+    }
+
+    @Test
+    public void testSearchText_BlankQueryThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sut.searchText("  ", 10);
+        });
+
+        assertEquals("Search query cannot be empty.", exception.getMessage());
+        verifyNoInteractions(productTextIndex);
+    }
+
+    @Test
+    public void testAutocomplete_TrimsPrefix() {
+        // Arrange
+        when(productAutocomplete.suggest("lip", 5)).thenReturn(Arrays.asList("Lip Gloss", "Matte Lipstick"));
+
+        // Act
+        List<String> result = sut.autocomplete("  lip ", 5);
+
+        // Assert
+        assertEquals(Arrays.asList("Lip Gloss", "Matte Lipstick"), result);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testAutocomplete_LimitOutOfRangeThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sut.autocomplete("lip", 11);
+        });
+
+        assertEquals("Limit must be between 1 and 10.", exception.getMessage());
+        verifyNoInteractions(productAutocomplete);
+    }
+
+    @Test
+    public void testFindAllPage_LimitOutOfRangeThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            sut.findAll(null, DefaultCustomerService.MAX_PAGE_SIZE + 1);
+        });
+
+        assertEquals("Limit must be between 1 and " + DefaultCustomerService.MAX_PAGE_SIZE + ".", exception.getMessage());
+    }
+
     @ParameterizedTest
     @CsvSource({ "LIPS, ''", "EYES, '   '", "FACE, '\t'", "TOOLS, '\n'" })
     public void testFindProductByCategoryAndColor_EmptyColorThrowsException(Category category, String color) {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByCategoryAndColor(category, color);
+            sut.findProductByCategoryAndColor(category, color, null, 50);
         });
 
         assertEquals("Color cannot be null or empty.", exception.getMessage());
@@ -405,7 +578,7 @@ public class CustomerServiceTests {
     public void testFindProductByCategoryAndColor_NullCategoryThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByCategoryAndColor(null, "red");
+            sut.findProductByCategoryAndColor(null, "red", null, 50);
         });
 
         assertEquals("Category cannot be null.", exception.getMessage());
@@ -415,7 +588,7 @@ public class CustomerServiceTests {
     public void testFindProductByCategoryAndColor_NullColorThrowsException() {
         // Act & Assert
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            sut.findProductByCategoryAndColor(Category.LIPS, null);
+            sut.findProductByCategoryAndColor(Category.LIPS, null, null, 50);
         });
 
         assertEquals("Color cannot be null or empty.", exception.getMessage());
@@ -448,13 +621,36 @@ public class CustomerServiceTests {
     @Test
     void testCreateOrder_ProductAmountGreaterThanAvailable_ThrowsException() {
         Product product = new Product();
+        product.setId(4);
         product.setAvailableQuantity(5);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.reserveStock(4, 10)).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             sut.createOrder(1, product, 10);
         });
 
         assertEquals("Not enough product available", exception.getMessage());
+        verify(productOrderRepository, never()).addToCartLine(any(), any(), anyInt());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testCreateOrder_StaleQuantityDoesNotDecide() {
+        Product product = new Product();
+        product.setId(4);
+        product.setAvailableQuantity(0);
+        product.setPrice(20.0);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.reserveStock(4, 2)).thenReturn(true);
+
+        sut.createOrder(1, product, 2);
+
+        verify(productOrderRepository, times(1)).addToCartLine(1, 4, 2);
+        ArgumentCaptor<ProductStockChangedEvent> event = ArgumentCaptor.forClass(ProductStockChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(4, event.getValue().getProductId());
+        assertEquals(-2, event.getValue().getDelta());
     }
 
     //fail
@@ -463,7 +659,7 @@ public class CustomerServiceTests {
         Product product = new Product();
         product.setAvailableQuantity(10);
 
-        when(cartRepository.findCartById(1)).thenReturn(null);
+        when(customerOrderRepository.lockCart(1)).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             sut.createOrder(1, product, 5);
@@ -471,8 +667,8 @@ public class CustomerServiceTests {
 
         assertEquals("Cart not found.", exception.getMessage());
 
-        // Verify that findCartById was called with the correct parameter
-        verify(cartRepository, times(1)).findCartById(1);
+        // Verify that lockCart was called with the correct parameter
+        verify(customerOrderRepository, times(1)).lockCart(1);
     }
 
     //fail
@@ -480,13 +676,15 @@ public class CustomerServiceTests {
     void testCreateOrder_Success() {
         Product product = new Product();
         product.setAvailableQuantity(10);
+        product.setPrice(20.0);
 
-        Cart cart = new Cart();
-        when(cartRepository.findCartById(1)).thenReturn(cart);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.reserveStock(any(), eq(5))).thenReturn(true);
 
         sut.createOrder(1, product, 5);
 
-        verify(productOrderRepository, times(1)).save(any(ProductOrder.class));
+        verify(productOrderRepository, times(1)).addToCartLine(eq(1), any(), eq(5));
+        verify(cartRepository, times(1)).addLineToPrice(eq(1), any(), eq(5));
     }
 
     //fail
@@ -495,12 +693,12 @@ public class CustomerServiceTests {
         Product product = new Product();
         product.setAvailableQuantity(5);
 
-        Cart cart = new Cart();
-        when(cartRepository.findCartById(1)).thenReturn(cart);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.reserveStock(any(), eq(5))).thenReturn(true);
 
         sut.createOrder(1, product, 5);
 
-        verify(productOrderRepository, times(1)).save(any(ProductOrder.class));
+        verify(productOrderRepository, times(1)).addToCartLine(eq(1), any(), eq(5));
     }
 
     //fail
@@ -509,12 +707,17 @@ public class CustomerServiceTests {
         Integer cartId = 1;
         Integer productId = 1;
 
-        ProductOrder productOrder = new ProductOrder();
+        Product product = new Product();
+        product.setPrice(20.0);
+        ProductOrder productOrder = new ProductOrder(product, 3);
+        when(customerOrderRepository.lockCart(cartId)).thenReturn(true);
         when(productOrderRepository.findProductByCartIdAndProductId(cartId, productId)).thenReturn(productOrder);
 
         sut.deleteProductFromCart(cartId, productId);
 
         verify(productOrderRepository, times(1)).delete(productOrder);
+        verify(cartRepository, times(1)).addLineToPrice(cartId, productId, -3);
+        verify(productRepository, times(1)).releaseStock(productId, 3);
     }
 
     //fail
@@ -524,16 +727,21 @@ public class CustomerServiceTests {
         Integer productId = 1;
         Integer amount = 5;
 
-        ProductOrder productOrder = new ProductOrder();
-        productOrder.setAmount(1);
+        Product product = new Product();
+        product.setPrice(20.0);
+        ProductOrder productOrder = new ProductOrder(product, 1);
+        when(customerOrderRepository.lockCart(cartId)).thenReturn(true);
         when(productOrderRepository.findProductByCartIdAndProductId(cartId, productId)).thenReturn(productOrder);
         when(productOrderRepository.save(productOrder)).thenReturn(productOrder);
+        when(productRepository.reserveStock(productId, 4)).thenReturn(true);
 
         ProductOrder updatedProductOrder = sut.editAmount(cartId, productId, amount);
 
         assertNotNull(updatedProductOrder);
         assertEquals(amount, updatedProductOrder.getAmount());
         verify(productOrderRepository, times(1)).save(productOrder);
+        verify(cartRepository, times(1)).addLineToPrice(cartId, productId, 4);
+        verify(productRepository, times(1)).reserveStock(productId, 4);
     }
 
     //fail
@@ -543,12 +751,14 @@ public class CustomerServiceTests {
         Integer productId = 1;
         Integer amount = 5;
 
+        when(customerOrderRepository.lockCart(cartId)).thenReturn(true);
         when(productOrderRepository.findProductByCartIdAndProductId(cartId, productId)).thenReturn(null);
 
         ProductOrder updatedProductOrder = sut.editAmount(cartId, productId, amount);
 
         assertNull(updatedProductOrder);
         verify(productOrderRepository, never()).save(any(ProductOrder.class));
+        verify(cartRepository, never()).addLineToPrice(any(), any(), anyInt());
     }
 
     //fail
@@ -587,29 +797,21 @@ public class CustomerServiceTests {
     void testViewProductsInCart_ProductsExist() {
         Integer cartId = 1;
 
-        Product product1 = new Product();
-        product1.setId(1);
-        product1.setName("Product 1");
-
-        Product product2 = new Product();
-        product2.setId(2);
-        product2.setName("Product 2");
+        ProductDto line1 = new ProductDto("Product 1", 10.0, "Type 1", Category.FACE, "Color 1", 2);
+        ProductDto line2 = new ProductDto("Product 2", 20.0, "Type 2", Category.EYES, "Color 2", 1);
 
-        ProductOrder productOrder1 = new ProductOrder();
-        productOrder1.setProduct(product1);
-
-        ProductOrder productOrder2 = new ProductOrder();
-        productOrder2.setProduct(product2);
-
-        when(productOrderRepository.ProductsInCart(cartId)).thenReturn(Arrays.asList(productOrder1, productOrder2));
+        when(productOrderRepository.findCartLines(cartId)).thenReturn(Arrays.asList(line1, line2));
 
         List<ProductDto> productsInCart = sut.viewProductsInCart(cartId);
 
         assertEquals(2, productsInCart.size());
         assertEquals("Product 1", productsInCart.get(0).getName());
+        assertEquals(2, productsInCart.get(0).getAmount());
         assertEquals("Product 2", productsInCart.get(1).getName());
 
-        verify(productOrderRepository, times(1)).ProductsInCart(cartId);
+        verify(productOrderRepository, times(1)).findCartLines(cartId);
+        verifyNoMoreInteractions(productOrderRepository);
+        verifyNoInteractions(productRepository);
     }
 
     //fail
@@ -617,67 +819,378 @@ public class CustomerServiceTests {
     void testViewProductsInCart_NoProducts() {
         Integer cartId = 1;
 
-        when(productOrderRepository.ProductsInCart(cartId)).thenReturn(Collections.emptyList());
+        when(productOrderRepository.findCartLines(cartId)).thenReturn(Collections.emptyList());
 
         List<ProductDto> productsInCart = sut.viewProductsInCart(cartId);
 
         assertEquals(0, productsInCart.size());
 
-        verify(productOrderRepository, times(1)).ProductsInCart(cartId);
+        verify(productOrderRepository, times(1)).findCartLines(cartId);
     }
 
     @Test
-    void testTotalPrice_CartExistsWithProducts() {
+    void testTotalPrice_ReadsStoredTotal() {
         Integer cartId = 1;
 
-        Product product1 = new Product();
-        product1.setId(1);
-        product1.setPrice(10.0);
+        when(cartRepository.findPriceById(cartId)).thenReturn(50.0);
 
-        Product product2 = new Product();
-        product2.setId(2);
-        product2.setPrice(20.0);
+        Double totalPrice = sut.totalPrice(cartId);
 
-        ProductOrder productOrder1 = new ProductOrder();
-        productOrder1.setProduct(product1);
-        productOrder1.setAmount(1);
+        assertEquals(50.0, totalPrice);
+        verify(cartRepository, times(1)).findPriceById(cartId);
+        verifyNoInteractions(productOrderRepository);
+    }
 
-        ProductOrder productOrder2 = new ProductOrder();
-        productOrder2.setProduct(product2);
-        productOrder2.setAmount(2);
+    @Test
+    void testTotalPrice_CartNotFound_ThrowsException() {
+        Integer cartId = 1;
 
-        Cart cart = new Cart();
-        cart.setId(cartId);
-        cart.setProductOrders(Arrays.asList(productOrder1, productOrder2));
+        when(cartRepository.findPriceById(cartId)).thenReturn(null);
 
-        when(cartRepository.findCartById(cartId)).thenReturn(cart);
-        when(productOrderRepository.findProductByCartId(cartId)).thenReturn(Arrays.asList(productOrder1, productOrder2));
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> sut.totalPrice(cartId));
 
-        Double totalPrice = sut.totalPrice(cartId);
+        assertEquals("Cart with ID 1 not found.", exception.getMessage());
+    }
 
-        assertEquals(50.0, totalPrice);
-        verify(cartRepository, times(1)).findCartById(cartId);
-        verify(productOrderRepository, times(1)).findProductByCartId(cartId);
+    @Test
+    void testCartTotal_FollowsLineChanges() {
+        Product product = new Product();
+        product.setId(3);
+        product.setAvailableQuantity(10);
+        product.setPrice(12.5);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.save(any(ProductOrder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ProductOrder line = new ProductOrder(product, 2);
+        when(productOrderRepository.findProductByCartIdAndProductId(1, 3)).thenReturn(line);
+        when(productRepository.reserveStock(any(), anyInt())).thenReturn(true);
+
+        sut.createOrder(1, product, 2);
+        sut.editAmount(1, 3, 5);
+        sut.deleteProductFromCart(1, 3);
+
+        ArgumentCaptor<Integer> amounts = ArgumentCaptor.forClass(Integer.class);
+        verify(cartRepository, times(3)).addLineToPrice(eq(1), eq(3), amounts.capture());
+        assertEquals(Arrays.asList(2, 3, -5), amounts.getAllValues());
+        assertEquals(0, amounts.getAllValues().stream().mapToInt(Integer::intValue).sum());
     }
 
     @Test
-    void testTotalPrice_CartExistsNoProducts() {
+    void testCheckout_TurnsCartIntoOrder() {
         Integer cartId = 1;
+        when(customerOrderRepository.lockCart(cartId)).thenReturn(true);
+        when(productOrderRepository.countByCartId(cartId)).thenReturn(2L);
+        when(productOrderRepository.sumLinePrices(cartId)).thenReturn(70.0);
+        when(customerOrderRepository.save(any(CustomerOrder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<OrderLine> lines = Arrays.asList(new OrderLine(null, 3, "Lipstick", 20.0, 2), new OrderLine(null, 5, "Mascara", 30.0, 1));
+        when(customerOrderRepository.findLinesByOrderId(any())).thenReturn(lines);
+
+        CustomerOrder order = sut.checkout(cartId);
+
+        assertEquals(cartId, order.getCartId());
+        assertEquals(70.0, order.getTotal());
+        assertNotNull(order.getCreatedAt());
+        assertEquals(lines, order.getLines());
+        InOrder inOrder = inOrder(customerOrderRepository);
+        inOrder.verify(customerOrderRepository).lockCart(cartId);
+        inOrder.verify(customerOrderRepository).save(any(CustomerOrder.class));
+        inOrder.verify(customerOrderRepository).copyCartLines(any(), eq(cartId));
+        inOrder.verify(customerOrderRepository).clearCart(cartId);
+        verify(productRepository, never()).reserveStock(any(), anyInt());
+    }
 
-        Cart cart = new Cart();
-        cart.setId(cartId);
-        cart.setProductOrders(Collections.emptyList());
+    @Test
+    void testCheckout_EmptyCartThrowsException() {
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.countByCartId(1)).thenReturn(0L);
 
-        when(cartRepository.findCartById(cartId)).thenReturn(cart);
-        when(productOrderRepository.findProductByCartId(cartId)).thenReturn(Collections.emptyList());
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> sut.checkout(1));
 
-        Double totalPrice = sut.totalPrice(cartId);
+        assertEquals("Cart is empty.", exception.getMessage());
+        verify(customerOrderRepository, never()).save(any(CustomerOrder.class));
+        verify(customerOrderRepository, never()).clearCart(any());
+    }
+
+    @Test
+    void testCheckout_CartNotFoundThrowsException() {
+        when(customerOrderRepository.lockCart(1)).thenReturn(false);
 
-        assertEquals(0.0, totalPrice);
-        verify(cartRepository, times(1)).findCartById(cartId);
-        verify(productOrderRepository, times(1)).findProductByCartId(cartId);
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> sut.checkout(1));
+
+        assertEquals("Cart with ID 1 not found.", exception.getMessage());
+        verifyNoInteractions(productOrderRepository);
     }
 
+    @Test
+    void testCreateOrder_SameProductTwiceUpsertsOneLine() {
+        Product product = new Product(4, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 10);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.reserveStock(4, 2)).thenReturn(true);
 
-}
+        sut.createOrder(1, product, 2);
+        sut.createOrder(1, product, 2);
+
+        verify(productOrderRepository, times(2)).addToCartLine(1, 4, 2);
+        verify(productOrderRepository, never()).save(any(ProductOrder.class));
+        verify(cartRepository, times(2)).addLineToPrice(1, 4, 2);
+    }
+
+    @Test
+    void testCreateOrder_PricesLineFromProductRowNotStaleProduct() {
+        Product stale = new Product(4, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 10);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.reserveStock(4, 3)).thenReturn(true);
+
+        sut.createOrder(1, stale, 3);
+
+        verify(cartRepository).addLineToPrice(1, 4, 3);
+        verify(cartRepository, never()).addToPrice(any(), anyDouble());
+    }
+
+    @Test
+    void testCreateOrder_HotProductReservesInMemory() {
+        Product product = new Product();
+        product.setId(4);
+        product.setPrice(20.0);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(hotInventory.isHot(4)).thenReturn(true);
+        when(hotInventory.reserve(4, 2)).thenReturn(true);
+
+        sut.createOrder(1, product, 2);
+
+        verify(productOrderRepository, times(1)).addToCartLine(1, 4, 2);
+        verify(cartRepository).addLineToPrice(1, 4, 2);
+        verify(productRepository, never()).reserveStock(any(), anyInt());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testCreateOrder_HotProductSoldOut_ThrowsException() {
+        Product product = new Product();
+        product.setId(4);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(hotInventory.isHot(4)).thenReturn(true);
+        when(hotInventory.reserve(4, 3)).thenReturn(false);
 
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> sut.createOrder(1, product, 3));
+
+        assertEquals("Not enough product available", exception.getMessage());
+        verify(productOrderRepository, never()).addToCartLine(any(), any(), anyInt());
+        verify(productRepository, never()).reserveStock(any(), anyInt());
+    }
+
+    @Test
+    void testDeleteProductFromCart_HotProductReleasesInMemory() {
+        Product product = new Product();
+        product.setId(4);
+        product.setPrice(20.0);
+        ProductOrder productOrder = new ProductOrder(product, 3);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findProductByCartIdAndProductId(1, 4)).thenReturn(productOrder);
+        when(hotInventory.isHot(4)).thenReturn(true);
+
+        sut.deleteProductFromCart(1, 4);
+
+        verify(hotInventory).release(4, 3);
+        verify(productRepository, never()).releaseStock(any(), anyInt());
+    }
+
+    @Test
+    void testCartLineChanges_LockCartFirst() {
+        Product product = new Product();
+        product.setId(3);
+        product.setPrice(10.0);
+        ProductOrder line = new ProductOrder(product, 2);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findProductByCartIdAndProductId(1, 3)).thenReturn(line);
+        when(productOrderRepository.save(line)).thenReturn(line);
+        when(productRepository.reserveStock(3, 1)).thenReturn(true);
+
+        sut.editAmount(1, 3, 3);
+        sut.deleteProductFromCart(1, 3);
+
+        InOrder inOrder = inOrder(customerOrderRepository, productRepository, productOrderRepository, cartRepository);
+        inOrder.verify(customerOrderRepository).lockCart(1);
+        inOrder.verify(productRepository).reserveStock(3, 1);
+        inOrder.verify(productOrderRepository).save(line);
+        inOrder.verify(cartRepository).addLineToPrice(1, 3, 1);
+        inOrder.verify(customerOrderRepository).lockCart(1);
+        inOrder.verify(productOrderRepository).delete(line);
+        inOrder.verify(cartRepository).addLineToPrice(1, 3, -3);
+    }
+
+    @Test
+    void testDeleteProductFromCart_CartNotFoundThrowsException() {
+        when(customerOrderRepository.lockCart(1)).thenReturn(false);
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> sut.deleteProductFromCart(1, 3));
+
+        assertEquals("Cart with ID 1 not found.", exception.getMessage());
+        verifyNoInteractions(productOrderRepository);
+    }
+
+    @Test
+    void testDeleteProductFromCart_ProductNotInCartThrowsException() {
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findProductByCartIdAndProductId(1, 3)).thenReturn(null);
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> sut.deleteProductFromCart(1, 3));
+
+        assertEquals("Product with ID 3 is not in cart 1.", exception.getMessage());
+        verify(productOrderRepository, never()).delete(any());
+        verifyNoInteractions(cartRepository);
+        verify(productRepository, never()).releaseStock(any(), anyInt());
+    }
+
+    @Test
+    void testAddProductsToCart_ReportsEveryLine() {
+        Product lipstick = new Product(3, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 5);
+        Product mascara = new Product(5, "Mascara", Category.EYES, "mascara", "black", 30.0, 0);
+        Product serum = new Product(8, "Serum", Category.FACE, "serum", "clear", 50.0, 9);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.findProductsByIds(any())).thenReturn(Arrays.asList(lipstick, mascara, serum));
+        when(productRepository.reserveStocks(any())).thenReturn(new HashSet<>(Arrays.asList(3, 8)));
+        when(cartRepository.findPriceById(1)).thenReturn(140.0);
+        List<CartLineInput> lines = Arrays.asList(
+                new CartLineInput(3, 2),
+                new CartLineInput(5, 1),
+                new CartLineInput(99, 1),
+                new CartLineInput(3, 1),
+                new CartLineInput(7, 0),
+                new CartLineInput(8, 1));
+
+        CartLinesResult result = sut.addProductsToCart(1, lines);
+
+        assertEquals(6, result.getLines().size());
+        assertTrue(result.getLines().get(0).isAdded());
+        assertEquals("Not enough product available", result.getLines().get(1).getMessage());
+        assertEquals("Product not found.", result.getLines().get(2).getMessage());
+        assertEquals("Product is listed more than once.", result.getLines().get(3).getMessage());
+        assertEquals("Invalid input data.", result.getLines().get(4).getMessage());
+        assertTrue(result.getLines().get(5).isAdded());
+        assertEquals(140.0, result.getTotalPrice());
+        verify(productRepository, times(1)).findProductsByIds(any());
+        ArgumentCaptor<Map<Integer, Integer>> reserved = ArgumentCaptor.forClass(Map.class);
+        verify(productRepository, times(1)).reserveStocks(reserved.capture());
+        assertEquals(3, reserved.getValue().size());
+        ArgumentCaptor<Map<Integer, Integer>> upserted = ArgumentCaptor.forClass(Map.class);
+        verify(productOrderRepository, times(1)).addToCartLines(eq(1), upserted.capture());
+        assertEquals(Arrays.asList(3, 8), new ArrayList<>(upserted.getValue().keySet()));
+        assertEquals(2, upserted.getValue().get(3));
+        verify(productOrderRepository, never()).findProductByCartId(any());
+        verify(cartRepository, times(1)).addToPrice(1, 90.0);
+        verify(productRepository, never()).reserveStock(any(), anyInt());
+    }
+
+    @Test
+    void testAddProductsToCart_WritesRowsInProductIdOrder() {
+        Product lipstick = new Product(3, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 5);
+        Product serum = new Product(8, "Serum", Category.FACE, "serum", "clear", 50.0, 9);
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productRepository.findProductsByIds(any())).thenReturn(Arrays.asList(serum, lipstick));
+        when(productRepository.reserveStocks(any())).thenReturn(new HashSet<>(Arrays.asList(3, 8)));
+
+        sut.addProductsToCart(1, Arrays.asList(new CartLineInput(8, 1), new CartLineInput(3, 2)));
+
+        ArgumentCaptor<Map<Integer, Integer>> reserved = ArgumentCaptor.forClass(Map.class);
+        verify(productRepository).reserveStocks(reserved.capture());
+        assertEquals(Arrays.asList(3, 8), new ArrayList<>(reserved.getValue().keySet()));
+        ArgumentCaptor<Map<Integer, Integer>> upserted = ArgumentCaptor.forClass(Map.class);
+        verify(productOrderRepository).addToCartLines(eq(1), upserted.capture());
+        assertEquals(Arrays.asList(3, 8), new ArrayList<>(upserted.getValue().keySet()));
+    }
+
+    @Test
+    void testReplaceCart_ReleasesPreviousLines() {
+        Product lipstick = new Product(3, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 5);
+        Product serum = new Product(8, "Serum", Category.FACE, "serum", "clear", 50.0, 9);
+        List<ProductOrder> previous = Collections.singletonList(new ProductOrder(serum, 4));
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findProductByCartId(1)).thenReturn(previous);
+        when(productRepository.findProductsByIds(any())).thenReturn(Collections.singletonList(lipstick));
+        when(productRepository.reserveStocks(any())).thenReturn(Collections.singleton(3));
+        when(cartRepository.findPriceById(1)).thenReturn(40.0);
+
+        CartLinesResult result = sut.replaceCart(1, Collections.singletonList(new CartLineInput(3, 2)));
+
+        assertTrue(result.getLines().get(0).isAdded());
+        assertEquals(40.0, result.getTotalPrice());
+        InOrder inOrder = inOrder(customerOrderRepository, productOrderRepository);
+        inOrder.verify(customerOrderRepository).clearCart(1);
+        inOrder.verify(productOrderRepository).addToCartLines(1, Collections.singletonMap(3, 2));
+        verify(productRepository).applyStockDeltas(Collections.singletonMap(8, 4));
+        verify(cartRepository).recalculatePrices(Collections.singletonList(1));
+        verify(cartRepository, never()).addToPrice(any(), anyDouble());
+    }
+
+    @Test
+    void testAddProductsToCart_EmptyLinesThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> sut.addProductsToCart(1, Collections.emptyList()));
+
+        assertEquals("Lines cannot be empty.", exception.getMessage());
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void testReplaceCart_CartNotFoundThrowsException() {
+        when(customerOrderRepository.lockCart(1)).thenReturn(false);
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> sut.replaceCart(1, Collections.singletonList(new CartLineInput(3, 2))));
+
+        assertEquals("Cart with ID 1 not found.", exception.getMessage());
+        verify(customerOrderRepository, never()).clearCart(any());
+    }
+
+    @Test
+    void testReleaseExpiredLines_GivesStockBack() {
+        Product lipstick = new Product(3, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 5);
+        Product serum = new Product(8, "Serum", Category.FACE, "serum", "clear", 50.0, 9);
+        List<ProductOrder> expired = Arrays.asList(new ProductOrder(serum, 4), new ProductOrder(lipstick, 2));
+        Instant before = Instant.parse("2026-01-01T10:00:00Z");
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findLinesReservedBefore(1, before)).thenReturn(expired);
+        when(hotInventory.isHot(8)).thenReturn(true);
+        when(productRepository.applyStockDeltas(Collections.singletonMap(3, 2))).thenReturn(Collections.singleton(3));
+
+        int released = sut.releaseExpiredLines(1, before);
+
+        assertEquals(2, released);
+        InOrder inOrder = inOrder(customerOrderRepository, productOrderRepository, cartRepository);
+        inOrder.verify(customerOrderRepository).lockCart(1);
+        inOrder.verify(productOrderRepository).deleteAll(expired);
+        inOrder.verify(cartRepository).recalculatePrices(Collections.singletonList(1));
+        verify(hotInventory).release(8, 4);
+        ArgumentCaptor<ProductStockChangedEvent> event = ArgumentCaptor.forClass(ProductStockChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(3, event.getValue().getProductId());
+        assertEquals(2, event.getValue().getDelta());
+    }
+
+    @Test
+    void testReleaseExpiredLines_NothingExpired() {
+        Instant before = Instant.parse("2026-01-01T10:00:00Z");
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findLinesReservedBefore(1, before)).thenReturn(Collections.emptyList());
+
+        assertEquals(0, sut.releaseExpiredLines(1, before));
+        verify(productOrderRepository, never()).deleteAll(any());
+        verifyNoInteractions(cartRepository, eventPublisher);
+    }
+
+    @Test
+    void testEditAmount_StartsHoldAgain() {
+        Product product = new Product(3, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, 5);
+        ProductOrder line = new ProductOrder(product, 2);
+        line.setReservedAt(Instant.parse("2026-01-01T10:00:00Z"));
+        when(customerOrderRepository.lockCart(1)).thenReturn(true);
+        when(productOrderRepository.findProductByCartIdAndProductId(1, 3)).thenReturn(line);
+        when(productOrderRepository.save(line)).thenReturn(line);
+
+        sut.editAmount(1, 3, 1);
+
+        assertTrue(line.getReservedAt().isAfter(Instant.parse("2026-01-01T10:00:00Z")));
+    }
+}
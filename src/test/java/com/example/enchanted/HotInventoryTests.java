@@ -0,0 +1,313 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.HotInventory;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductStockChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class HotInventoryTests {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Available quantity of product 7 in the product table
+     */
+    private final AtomicInteger row = new AtomicInteger();
+
+    private HotInventory hotInventory;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        hotInventory = new HotInventory(productRepository, eventPublisher, 4, 4);
+        row.set(10);
+        when(productRepository.findAvailableQuantity(7)).thenAnswer(invocation -> row.get());
+        when(productRepository.leaseStock(eq(7), anyInt())).thenAnswer(invocation -> {
+            int amount = invocation.getArgument(1);
+            int current;
+            while ((current = row.get()) >= amount) {
+                if (row.compareAndSet(current, current - amount)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        when(productRepository.applyStockDeltas(anyMap())).thenAnswer(invocation -> {
+            Map<Integer, Integer> deltas = invocation.getArgument(0);
+            row.addAndGet(deltas.getOrDefault(7, 0));
+            return deltas.keySet();
+        });
+    }
+
+    @Test
+    public void testEnable_LeasesFirstBlockOnly() {
+        // Act
+        hotInventory.enable(7);
+
+        // Assert
+        assertTrue(hotInventory.isHot(7));
+        assertEquals(6, row.get());
+        assertEquals(4, hotInventory.leased(7));
+        hotInventory.reconcile();
+        verifyNoInteractions(eventPublisher);
+        verify(productRepository).leaseStock(7, 4);
+        verify(productRepository, never()).findProductById(any());
+    }
+
+    @Test
+    public void testReserve_LeasesBlocksUntilStockRunsOut() {
+        // Arrange
+        hotInventory.enable(7);
+
+        // Act & Assert
+        assertTrue(hotInventory.reserve(7, 6));
+        assertEquals(2, row.get());
+        assertTrue(hotInventory.reserve(7, 4));
+        assertEquals(0, row.get());
+        assertFalse(hotInventory.reserve(7, 1));
+        verify(productRepository, never()).reserveStock(any(), anyInt());
+    }
+
+    @Test
+    public void testReserve_LeasesWhatIsLeftWhenLessThanABlock() {
+        // Arrange
+        row.set(5);
+        hotInventory.enable(7);
+
+        // Act & Assert
+        assertTrue(hotInventory.reserve(7, 4));
+        assertTrue(hotInventory.reserve(7, 1));
+        assertEquals(0, row.get());
+        assertFalse(hotInventory.reserve(7, 1));
+    }
+
+    @Test
+    public void testReserve_GathersFromSeveralStripes() {
+        // Arrange
+        row.set(4);
+        hotInventory.enable(7);
+        hotInventory.release(7, 3);
+
+        // Act & Assert
+        assertTrue(hotInventory.reserve(7, 6));
+        assertFalse(hotInventory.reserve(7, 2));
+        assertTrue(hotInventory.reserve(7, 1));
+    }
+
+    @Test
+    public void testRelease_ReturnsTokens() {
+        // Arrange
+        hotInventory.enable(7);
+        assertTrue(hotInventory.reserve(7, 10));
+
+        // Act
+        hotInventory.release(7, 3);
+
+        // Assert
+        assertTrue(hotInventory.reserve(7, 3));
+        assertFalse(hotInventory.reserve(7, 1));
+    }
+
+    @Test
+    public void testReserve_ConcurrentOrdersNeverOversell() throws Exception {
+        // Arrange
+        row.set(1000);
+        hotInventory.enable(7);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            results.add(executor.submit(() -> {
+                int reserved = 0;
+                for (int i = 0; i < 500; i++) {
+                    if (hotInventory.reserve(7, 1)) {
+                        reserved++;
+                    }
+                }
+                return reserved;
+            }));
+        }
+        int reserved = 0;
+        for (Future<Integer> result : results) {
+            reserved += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1000, reserved);
+        assertEquals(0, row.get());
+        assertFalse(hotInventory.reserve(7, 1));
+    }
+
+    @Test
+    public void testReserve_TwoInstancesShareTheRow() {
+        // Arrange
+        HotInventory other = new HotInventory(productRepository, eventPublisher, 4, 4);
+        hotInventory.enable(7);
+        other.enable(7);
+
+        // Act
+        int reserved = 0;
+        while (hotInventory.reserve(7, 1)) {
+            reserved++;
+        }
+        while (other.reserve(7, 1)) {
+            reserved++;
+        }
+
+        // Assert
+        assertEquals(10, reserved);
+        assertEquals(0, row.get());
+    }
+
+    @Test
+    public void testReconcile_PublishesTakenStockOnceAndNotTheLeases() {
+        // Arrange
+        hotInventory.enable(7);
+        hotInventory.reserve(7, 5);
+        hotInventory.release(7, 1);
+
+        // Act
+        hotInventory.reconcile();
+        hotInventory.reconcile();
+
+        // Assert
+        ArgumentCaptor<ProductStockChangedEvent> captor = ArgumentCaptor.forClass(ProductStockChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        assertEquals(7, captor.getValue().getProductId());
+        assertEquals(-4, captor.getValue().getDelta());
+        assertEquals(2, row.get());
+        assertEquals(4, hotInventory.leased(7));
+        verify(productRepository, never()).applyStockDeltas(anyMap());
+    }
+
+    @Test
+    public void testDisable_GivesUnusedTokensBackAndFallsBackToDatabase() {
+        // Arrange
+        hotInventory.enable(7);
+        hotInventory.reserve(7, 2);
+        when(productRepository.reserveStock(7, 1)).thenReturn(true);
+
+        // Act
+        hotInventory.disable(7);
+
+        // Assert
+        assertFalse(hotInventory.isHot(7));
+        verify(productRepository).applyStockDeltas(Collections.singletonMap(7, 2));
+        assertEquals(8, row.get());
+        ArgumentCaptor<ProductStockChangedEvent> captor = ArgumentCaptor.forClass(ProductStockChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(-2, captor.getValue().getDelta());
+        assertTrue(hotInventory.reserve(7, 1));
+        verify(productRepository).reserveStock(7, 1);
+    }
+
+    @Test
+    public void testDisable_FailedGiveBackIsRetried() {
+        // Arrange
+        hotInventory.enable(7);
+        doThrow(new RuntimeException("Lock wait timeout")).doAnswer(invocation -> Collections.singleton(7))
+                .when(productRepository).applyStockDeltas(anyMap());
+
+        // Act
+        assertThrows(RuntimeException.class, () -> hotInventory.disable(7));
+        hotInventory.reconcile();
+
+        // Assert
+        verify(productRepository, times(2)).applyStockDeltas(Collections.singletonMap(7, 4));
+    }
+
+    @Test
+    public void testEnable_UnknownProductThrowsException() {
+        // Arrange
+        when(productRepository.findAvailableQuantity(99)).thenReturn(null);
+
+        // Act & Assert
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> hotInventory.enable(99));
+        assertEquals("Product with ID 99 not found.", exception.getMessage());
+        assertFalse(hotInventory.isHot(99));
+    }
+
+    @Test
+    public void testOnProductChanged_AdminEditDropsLeasedTokens() {
+        // Arrange
+        hotInventory.enable(7);
+        hotInventory.reserve(7, 3);
+
+        // Act
+        row.set(50);
+        hotInventory.onProductChanged(ProductChangedEvent.saved(product(7, 50)));
+
+        // Assert
+        int reserved = 0;
+        while (hotInventory.reserve(7, 1)) {
+            reserved++;
+        }
+        assertEquals(50, reserved);
+        verify(productRepository, never()).applyStockDeltas(anyMap());
+        hotInventory.onProductChanged(ProductChangedEvent.deleted(7));
+        assertFalse(hotInventory.isHot(7));
+    }
+
+    @Test
+    public void testOnProductChanged_RollbackAfterAdminEditGoesBackToTheRow() {
+        // Arrange
+        hotInventory.enable(7);
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            assertTrue(hotInventory.reserve(7, 3));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        row.set(50);
+        hotInventory.onProductChanged(ProductChangedEvent.saved(product(7, 50)));
+
+        // Act
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        hotInventory.reconcile();
+
+        // Assert
+        verify(productRepository).applyStockDeltas(Collections.singletonMap(7, 3));
+        assertEquals(53, row.get());
+        ArgumentCaptor<ProductStockChangedEvent> captor = ArgumentCaptor.forClass(ProductStockChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(3, captor.getValue().getDelta());
+        assertEquals(0, hotInventory.leased(7));
+    }
+
+    private static Product product(Integer id, Integer availableQuantity) {
+        return new Product(id, "Lipstick", Category.LIPS, "lipstick", "red", 20.0, availableQuantity);
+    }
+}
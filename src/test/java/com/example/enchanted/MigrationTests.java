@@ -0,0 +1,147 @@
+package com.example.enchanted;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.example.enchanted.Repository.ProductStockRepositoryImpl;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrates an empty database and one holding the schema Hibernate created before migrations took over,
+ * with the constraint names Hibernate generated, and checks that both end up with the same schema.
+ * The plain SQL of the stock repository is run against a migrated schema as well.
+ */
+public class MigrationTests {
+
+    /**
+     * Schema and rows of a database created by the application before the migrations
+     */
+    private static final String[] LEGACY = {
+            "CREATE TABLE cart (id INTEGER NOT NULL AUTO_INCREMENT, total_price DOUBLE PRECISION NOT NULL, PRIMARY KEY (id)) ENGINE = InnoDB",
+            "CREATE TABLE customer (id INTEGER NOT NULL AUTO_INCREMENT, address VARCHAR(255), email VARCHAR(255), name VARCHAR(255)," +
+                    " phone_number VARCHAR(255), cart_id INTEGER, PRIMARY KEY (id)) ENGINE = InnoDB",
+            "CREATE TABLE product (id INTEGER NOT NULL AUTO_INCREMENT, available_quantity INTEGER, category VARCHAR(255), color VARCHAR(255)," +
+                    " name VARCHAR(255), price DOUBLE PRECISION NOT NULL, type VARCHAR(255), PRIMARY KEY (id)) ENGINE = InnoDB",
+            "CREATE TABLE product_orders (id INTEGER NOT NULL AUTO_INCREMENT, amount INTEGER, cart_id INTEGER, product_id INTEGER," +
+                    " PRIMARY KEY (id)) ENGINE = InnoDB",
+            "ALTER TABLE customer ADD CONSTRAINT UK_7rd0yl2aqpxq1kbvb5rbhdo0g UNIQUE (cart_id)",
+            "ALTER TABLE product_orders ADD CONSTRAINT UK_qh1wmr7vyb6d5e4rlt0nbq7nu UNIQUE (product_id)",
+            "ALTER TABLE customer ADD CONSTRAINT FKglkhkmh2vyn790ijs6hiqqpi FOREIGN KEY (cart_id) REFERENCES cart (id)",
+            "ALTER TABLE product_orders ADD CONSTRAINT FK6fbyi0hb1cdsoblpqn0ex0esa FOREIGN KEY (cart_id) REFERENCES cart (id)",
+            "ALTER TABLE product_orders ADD CONSTRAINT FKomy2vmi9ouktgfkmyvc7g0cor FOREIGN KEY (product_id) REFERENCES product (id)",
+            "INSERT INTO product (id, name, category, type, color, price, available_quantity) VALUES (1, 'Lipstick', 'LIPS', 'lipstick', 'red', 20, 5)," +
+                    " (2, 'Mascara', 'EYES', 'mascara', 'black', 10, 0)",
+            "INSERT INTO cart (id, total_price) VALUES (1, 0), (2, 0)",
+            "INSERT INTO customer (id, name, email, cart_id) VALUES (1, 'John Doe', 'john@example.com', 1)",
+            "INSERT INTO product_orders (id, cart_id, product_id, amount) VALUES (7, 1, 1, 2), (8, 2, 2, 1)"
+    };
+
+    private static DBConfigurationBuilder config;
+    private static DB database;
+
+    @BeforeAll
+    static void startDatabase() throws ManagedProcessException {
+        config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        database = DB.newEmbeddedDB(config.build());
+        database.start();
+        database.createDB("fresh");
+        database.createDB("upgraded");
+        database.createDB("stock");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws ManagedProcessException {
+        if (database != null) {
+            database.stop();
+        }
+    }
+
+    @Test
+    public void testMigrate_LegacyDatabaseEndsUpLikeAFreshOne() {
+        // Arrange
+        JdbcTemplate fresh = jdbcTemplate("fresh");
+        JdbcTemplate upgraded = jdbcTemplate("upgraded");
+        for (String statement : LEGACY) {
+            upgraded.execute(statement);
+        }
+
+        // Act
+        migrate("fresh");
+        migrate("upgraded");
+
+        // Assert
+        assertEquals(columns(fresh, "fresh"), columns(upgraded, "upgraded"));
+        assertEquals(indexes(fresh, "fresh"), indexes(upgraded, "upgraded"));
+        assertEquals(9L, upgraded.queryForObject("SELECT next_val FROM product_orders_seq", Long.class));
+        assertEquals(3L, upgraded.queryForObject("SELECT next_val FROM product_seq", Long.class));
+        assertEquals(1L, fresh.queryForObject("SELECT next_val FROM product_seq", Long.class));
+        assertEquals(40.0, upgraded.queryForObject("SELECT total_price FROM cart WHERE id = 1", Double.class));
+        assertEquals(10.0, upgraded.queryForObject("SELECT total_price FROM cart WHERE id = 2", Double.class));
+        upgraded.update("INSERT INTO product_orders (id, cart_id, product_id, amount) VALUES (9, 2, 1, 1)");
+        assertThrows(DataIntegrityViolationException.class,
+                () -> upgraded.update("INSERT INTO product_orders (id, cart_id, product_id, amount) VALUES (10, 2, 1, 1)"));
+    }
+
+    @Test
+    public void testSetOnHandQuantities_KeepsUnitsInCartsReserved() {
+        // Arrange
+        migrate("stock");
+        JdbcTemplate stock = jdbcTemplate("stock");
+        stock.update("INSERT INTO product (id, name, category, type, color, price, available_quantity) VALUES" +
+                " (1, 'Lipstick', 'LIPS', 'lipstick', 'red', 20, 5), (2, 'Mascara', 'EYES', 'mascara', 'black', 10, 0)," +
+                " (3, 'Serum', 'FACE', 'serum', 'clear', 50, 9)");
+        stock.update("INSERT INTO cart (id, total_price) VALUES (1, 0), (2, 0)");
+        stock.update("INSERT INTO product_orders (id, cart_id, product_id, amount) VALUES (1, 1, 1, 2), (2, 2, 1, 1), (3, 1, 2, 4)");
+
+        // Act
+        int[] counts = new ProductStockRepositoryImpl(stock).setOnHandQuantities(new int[]{1, 2, 3, 99}, new int[]{10, 3, 7, 1}, 4);
+
+        // Assert
+        assertArrayEquals(new int[]{1, 1, 1, 0}, counts);
+        assertEquals(Arrays.asList(7, 0, 7), stock.queryForList("SELECT available_quantity FROM product ORDER BY id", Integer.class));
+    }
+
+    private static void migrate(String schema) {
+        Flyway.configure()
+                .dataSource(config.getURL(schema), "root", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private static JdbcTemplate jdbcTemplate(String schema) {
+        return new JdbcTemplate(new DriverManagerDataSource(config.getURL(schema), "root", ""));
+    }
+
+    private static List<String> columns(JdbcTemplate jdbcTemplate, String schema) {
+        return jdbcTemplate.queryForList("SELECT CONCAT(table_name, '.', column_name, ' ', column_type, ' ', is_nullable)" +
+                " FROM information_schema.columns WHERE table_schema = ? AND table_name <> 'flyway_schema_history'" +
+                " ORDER BY table_name, column_name", String.class, schema);
+    }
+
+    /**
+     * Indexes with their columns and uniqueness. Only the idx_ names are chosen by the migrations alone,
+     * keys and foreign key indexes of a legacy database carry the names Hibernate generated, so those are compared
+     * by their columns.
+     */
+    private static List<String> indexes(JdbcTemplate jdbcTemplate, String schema) {
+        return jdbcTemplate.queryForList("SELECT CONCAT(table_name, ' ', CASE WHEN BINARY index_name LIKE 'idx!_%' ESCAPE '!'" +
+                " OR index_name = 'PRIMARY' THEN index_name ELSE '' END, ' ', non_unique, ' '," +
+                " GROUP_CONCAT(column_name ORDER BY seq_in_index))" +
+                " FROM information_schema.statistics WHERE table_schema = ? AND table_name <> 'flyway_schema_history'" +
+                " GROUP BY table_name, index_name, non_unique ORDER BY 1", String.class, schema);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Service.CatalogSnapshot;
+import com.example.enchanted.Service.ProductAutocomplete;
+import com.example.enchanted.Service.ProductCatalog;
+import com.example.enchanted.Service.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductAutocompleteTests {
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private ProductAutocomplete autocomplete;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(Arrays.asList(
+                new Product(1, "Velvet Matte Lipstick", Category.LIPS, "lipstick", "red", 250.0, 10),
+                new Product(2, "Lip Liner", Category.LIPS, "lipLiner", "red", 150.0, 10),
+                new Product(3, "Volume Mascara", Category.EYES, "mascara", "black", 300.0, 10),
+                new Product(4, "Lip Liner", Category.LIPS, "lipLiner", "brown", 150.0, 10),
+                new Product(5, "Lipstick", Category.LIPS, "lipstick", "pink", 220.0, 10))));
+        autocomplete = new ProductAutocomplete(productCatalog);
+    }
+
+    @Test
+    public void testSuggest_MatchesStartOfAnyWord() {
+        // Act & Assert
+        assertEquals(Arrays.asList("Lip Liner", "Lipstick", "Velvet Matte Lipstick"), autocomplete.suggest("LIP", 10));
+        assertEquals(Arrays.asList("Lipstick", "Velvet Matte Lipstick"), autocomplete.suggest("lipst", 10));
+        assertEquals(Collections.singletonList("Volume Mascara"), autocomplete.suggest("mas", 10));
+    }
+
+    @Test
+    public void testSuggest_DoesNotMatchInsideWords() {
+        // Act & Assert
+        assertTrue(autocomplete.suggest("stick", 10).isEmpty());
+        assertTrue(autocomplete.suggest("lipsticks", 10).isEmpty());
+    }
+
+    @Test
+    public void testSuggest_AppliesLimit() {
+        // Act & Assert
+        assertEquals(Collections.singletonList("Lip Liner"), autocomplete.suggest("l", 1));
+    }
+
+    @Test
+    public void testOnProductChanged_RebuildsOnlyWhenNameChanges() {
+        // Arrange
+        autocomplete.warmUp();
+        Product renamed = new Product(3, "Lash Mascara", Category.EYES, "mascara", "black", 300.0, 10);
+        Product restocked = new Product(2, "Lip Liner", Category.LIPS, "lipLiner", "red", 150.0, 50);
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(Arrays.asList(renamed, restocked)));
+
+        // Act
+        autocomplete.onProductChanged(ProductChangedEvent.saved(restocked));
+        verify(productCatalog, times(1)).snapshot();
+        autocomplete.onProductChanged(ProductChangedEvent.saved(renamed));
+
+        // Assert
+        verify(productCatalog, times(2)).snapshot();
+        assertEquals(Collections.singletonList("Lash Mascara"), autocomplete.suggest("la", 10));
+        assertTrue(autocomplete.suggest("vol", 10).isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductCacheStatistics;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.ProductCache;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductStockChangedEvent;
+import com.example.enchanted.Service.ProductsImportedEvent;
+import com.example.enchanted.Service.StockFeedAppliedEvent;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductCacheTests {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private Cache cache;
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Statistics statistics;
+    @Mock
+    private CacheRegionStatistics entityRegion;
+
+    private ProductCache productCache;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        productCache = new ProductCache(entityManagerFactory);
+    }
+
+    @Test
+    public void testOnProductChanged_EvictsOnlyThatProduct() {
+        // Act
+        productCache.onProductChanged(ProductChangedEvent.saved(new Product(7, "Lipstick", Category.LIPS, "lipstick", "red", 220.0, 10)));
+        productCache.onProductChanged(ProductChangedEvent.deleted(8));
+
+        // Assert
+        verify(cache).evict(Product.class, 7);
+        verify(cache).evict(Product.class, 8);
+        verify(cache, never()).evict(Product.class);
+        verify(cache, never()).evictAll();
+    }
+
+    @Test
+    public void testOnStockChanged_EvictsProduct() {
+        // Act
+        productCache.onStockChanged(new ProductStockChangedEvent(7, -2));
+
+        // Assert
+        verify(cache).evict(Product.class, 7);
+    }
+
+    @Test
+    public void testOnProductsImported_EvictsProductsAndFinderResults() {
+        // Arrange
+        org.hibernate.Cache hibernateCache = mock(org.hibernate.Cache.class);
+        when(sessionFactory.getCache()).thenReturn(hibernateCache);
+
+        // Act
+        productCache.onProductsImported(new ProductsImportedEvent(3));
+        productCache.onStockFeedApplied(new StockFeedAppliedEvent(5));
+
+        // Assert
+        verify(cache, times(2)).evict(Product.class);
+        verify(hibernateCache, times(2)).evictQueryRegion(ProductRepository.QUERY_CACHE_REGION);
+    }
+
+    @Test
+    public void testStatistics_ReadsProductRegions() {
+        // Arrange
+        when(statistics.getDomainDataRegionStatistics(Product.CACHE_REGION)).thenReturn(entityRegion);
+        when(entityRegion.getHitCount()).thenReturn(90L);
+        when(entityRegion.getMissCount()).thenReturn(10L);
+        when(entityRegion.getElementCountInMemory()).thenReturn(25L);
+        when(statistics.getQueryRegionStatistics(ProductRepository.QUERY_CACHE_REGION)).thenReturn(null);
+        productCache.onProductChanged(ProductChangedEvent.deleted(8));
+
+        // Act
+        ProductCacheStatistics result = productCache.statistics();
+
+        // Assert
+        assertEquals(90, result.getEntityHits());
+        assertEquals(10, result.getEntityMisses());
+        assertEquals(25, result.getEntitiesInMemory());
+        assertEquals(1, result.getEntityEvictions());
+        assertEquals(0, result.getQueryHits());
+    }
+}
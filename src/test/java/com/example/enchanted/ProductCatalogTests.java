@@ -0,0 +1,265 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.PriceBand;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductCursor;
+import com.example.enchanted.Pojo.ProductSearchResult;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.CatalogSnapshot;
+import com.example.enchanted.Service.CatalogVersion;
+import com.example.enchanted.Service.HotInventory;
+import com.example.enchanted.Service.ProductCatalog;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductStockChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Slice;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductCatalogTests {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private CatalogVersion catalogVersion;
+    @Mock
+    private HotInventory hotInventory;
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        catalog = new ProductCatalog(productRepository, catalogVersion, hotInventory, true, "0-100,100-500,500-");
+    }
+
+    @Test
+    public void testSnapshot_CountsUnitsLeasedToHotInventory() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 0),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 29)));
+        when(hotInventory.hotProductIds()).thenReturn(Collections.singleton(1));
+        when(hotInventory.leased(1)).thenReturn(100);
+
+        // Act
+        CatalogSnapshot snapshot = catalog.snapshot();
+
+        // Assert
+        assertEquals(100, snapshot.findById(1).getAvailableQuantity());
+        assertEquals(29, snapshot.findById(2).getAvailableQuantity());
+    }
+
+    @Test
+    public void testSnapshot_LoadsOnceFromRepository() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 29)));
+
+        // Act
+        CatalogSnapshot first = catalog.snapshot();
+        CatalogSnapshot second = catalog.snapshot();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(2, first.size());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testSnapshot_IndexesColorAndTypeCaseInsensitively() {
+        // Arrange
+        Product product = new Product(1, "kylie", Category.LIPS, "LipLiner", "Red", 250.0, 29);
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Collections.singletonList(product));
+
+        // Act & Assert
+        assertEquals(Collections.singletonList(product), snapshot.findByColor("red"));
+        assertEquals(Collections.singletonList(product), snapshot.findByType("lipliner"));
+        assertTrue(snapshot.findByColor("blue").isEmpty());
+    }
+
+    @Test
+    public void testOnProductChanged_PublishesNewSnapshot() {
+        // Arrange
+        Product lipstick = new Product(1, "lipstick", Category.LIPS, "lipstick", "red", 250.0, 10);
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(lipstick));
+        CatalogSnapshot before = catalog.snapshot();
+        Product renamed = new Product(1, "matte lipstick", Category.LIPS, "lipstick", "pink", 270.0, 10);
+
+        // Act
+        catalog.onProductChanged(ProductChangedEvent.saved(renamed));
+
+        // Assert
+        CatalogSnapshot after = catalog.snapshot();
+        assertNotSame(before, after);
+        assertEquals("lipstick", before.findById(1).getName());
+        assertEquals("matte lipstick", after.findById(1).getName());
+        assertTrue(after.findByColor("red").isEmpty());
+        assertEquals(1, after.findByColor("pink").size());
+    }
+
+    @Test
+    public void testOnProductChanged_RemovesDeletedProduct() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                new Product(1, "lipstick", Category.LIPS, "lipstick", "red", 250.0, 10),
+                new Product(2, "mascara", Category.EYES, "mascara", "black", 300.0, 15)));
+        catalog.snapshot();
+
+        // Act
+        catalog.onProductChanged(ProductChangedEvent.deleted(1));
+
+        // Assert
+        List<Product> lips = catalog.snapshot().findByCategory(Category.LIPS);
+        assertTrue(lips.isEmpty());
+        assertNull(catalog.snapshot().findById(1));
+        assertEquals(1, catalog.snapshot().size());
+    }
+
+    @Test
+    public void testFindByPriceRange_ReturnsCheapestFirstAndPagesByPriceAndId() {
+        // Arrange
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 29),
+                new Product(3, "maybelline", Category.EYES, "mascara", "blue", 250.0, 28),
+                new Product(4, "dior", Category.LIPS, "lipOil", "violet", 2500.0, 18),
+                new Product(5, "fenty", Category.LIPS, "gloss", "pink", 90.0, 12)));
+
+        // Act
+        Slice<Product> first = snapshot.findByPriceRange(100.0, 600.0, null, 100.0, 0, 2);
+        Slice<Product> second = snapshot.findByPriceRange(100.0, 600.0, null, 250.0, 3, 2);
+        Slice<Product> lips = snapshot.findByPriceRange(0.0, 1000.0, Category.LIPS, 0.0, 0, 10);
+
+        // Assert
+        assertEquals(Arrays.asList(2, 3), ids(first.getContent()));
+        assertTrue(first.hasNext());
+        assertEquals(Collections.singletonList(1), ids(second.getContent()));
+        assertFalse(second.hasNext());
+        assertEquals(Arrays.asList(5, 2), ids(lips.getContent()));
+    }
+
+    @Test
+    public void testSearch_IntersectsFacetsAndCountsOtherSelections() {
+        // Arrange
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "Red", 250.0, 29),
+                new Product(3, "maybelline", Category.EYES, "mascara", "red", 70.0, 28),
+                new Product(4, "dior", Category.LIPS, "lipOil", "pink", 2500.0, 18),
+                new Product(5, "fenty", Category.LIPS, "gloss", "red", 90.0, 12)));
+
+        // Act
+        ProductSearchResult result = snapshot.search(Collections.singletonList(Category.LIPS), Collections.singletonList("red"),
+                Collections.emptyList(), Collections.emptyList(), catalog.getPriceBands(), 0, 1);
+
+        // Assert
+        assertEquals(Collections.singletonList(2), ids(result.getProducts()));
+        assertEquals(2, result.getTotal());
+        assertEquals(ProductCursor.encode(2), result.getNextCursor());
+        assertEquals(Integer.valueOf(2), result.getFacets().get("category").get("LIPS"));
+        assertEquals(Integer.valueOf(1), result.getFacets().get("category").get("EYES"));
+        assertEquals(Integer.valueOf(2), result.getFacets().get("color").get("red"));
+        assertEquals(Integer.valueOf(1), result.getFacets().get("color").get("pink"));
+        assertEquals(Integer.valueOf(1), result.getFacets().get("price").get("0-100"));
+        assertEquals(Integer.valueOf(1), result.getFacets().get("price").get("100-500"));
+    }
+
+    @Test
+    public void testSearch_FiltersByPriceBandAndPagesAfterCursor() {
+        // Arrange
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 29),
+                new Product(3, "maybelline", Category.EYES, "mascara", "red", 70.0, 28),
+                new Product(5, "fenty", Category.LIPS, "gloss", "red", 100.0, 12)));
+
+        // Act
+        ProductSearchResult result = snapshot.search(Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                Arrays.asList(PriceBand.valueOf("0-100"), PriceBand.valueOf("100-300")), Collections.emptyList(), 2, 10);
+
+        // Assert
+        assertEquals(Arrays.asList(3, 5), ids(result.getProducts()));
+        assertNull(result.getNextCursor());
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFlushStock_AppliesCollectedChangesOnce() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 29)));
+        catalog.snapshot();
+        catalog.onStockChanged(new ProductStockChangedEvent(1, -3));
+        catalog.onStockChanged(new ProductStockChangedEvent(1, -2));
+        catalog.onStockChanged(new ProductStockChangedEvent(2, 4));
+        assertEquals(24, catalog.snapshot().findById(1).getAvailableQuantity());
+
+        // Act
+        catalog.flushStock();
+
+        // Assert
+        assertEquals(19, catalog.snapshot().findById(1).getAvailableQuantity());
+        assertEquals(33, catalog.snapshot().findById(2).getAvailableQuantity());
+        verify(catalogVersion, times(1)).increment();
+        catalog.flushStock();
+        verify(catalogVersion, times(1)).increment();
+    }
+
+    @Test
+    public void testFlushStock_AdminEditDropsEarlierOrderChanges() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24)));
+        catalog.snapshot();
+        catalog.onStockChanged(new ProductStockChangedEvent(1, -3));
+
+        // Act
+        catalog.onProductChanged(ProductChangedEvent.saved(new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 50)));
+        catalog.flushStock();
+
+        // Assert
+        assertEquals(50, catalog.snapshot().findById(1).getAvailableQuantity());
+    }
+
+    @Test
+    public void testWithStock_ReplacesProductInEveryIndex() {
+        // Arrange
+        CatalogSnapshot snapshot = CatalogSnapshot.of(Arrays.asList(
+                new Product(1, "rare", Category.FACE, "foundation", "beige", 580.0, 24),
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 29),
+                new Product(3, "fenty", Category.LIPS, "gloss", "red", 90.0, 12)));
+
+        // Act
+        CatalogSnapshot patched = snapshot.withStock(Collections.singletonList(
+                new Product(2, "kylie", Category.LIPS, "lipLiner", "red", 250.0, 5)));
+
+        // Assert
+        assertEquals(29, snapshot.findById(2).getAvailableQuantity());
+        assertEquals(5, patched.findById(2).getAvailableQuantity());
+        assertEquals(5, patched.findByCategory(Category.LIPS).get(0).getAvailableQuantity());
+        assertEquals(5, patched.findByColor("red").get(0).getAvailableQuantity());
+        assertEquals(5, patched.findByType("lipLiner").get(0).getAvailableQuantity());
+        assertEquals(5, patched.findByPriceRange(200, 300, null, -1, 0, 10).getContent().get(0).getAvailableQuantity());
+        assertEquals(5, patched.findByPriceRange(200, 300, Category.LIPS, -1, 0, 10).getContent().get(0).getAvailableQuantity());
+        assertEquals(5, patched.search(Collections.emptyList(), Collections.singletonList("red"), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), 0, 10).getProducts().get(0).getAvailableQuantity());
+        assertSame(snapshot.findByCategory(Category.FACE), patched.findByCategory(Category.FACE));
+        assertEquals(Arrays.asList(1, 2, 3), ids(patched.findAll()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Controller.CustomerController;
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Service.CustomerService;
+import com.example.enchanted.Service.ProductChangeStream;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductStockChangedEvent;
+import com.example.enchanted.Service.StockFeedAppliedEvent;
+import com.example.enchanted.Service.StockLevels;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class ProductChangeStreamTests {
+
+    @Mock
+    private StockLevels stockLevels;
+    @Mock
+    private CustomerService customerService;
+
+    private ProductChangeStream stream;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stream = new ProductChangeStream(stockLevels, 16, 60_000, 1);
+        when(customerService.subscribeToProductChanges(anyBoolean()))
+                .thenAnswer(invocation -> stream.subscribe(invocation.getArgument(0)));
+        mockMvc = MockMvcBuilders.standaloneSetup(new CustomerController(customerService, new ObjectMapper())).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_PushesEditsOrdersAndDeletes() throws Exception {
+        // Arrange
+        MvcResult result = subscribe(null);
+        when(stockLevels.quantity(7)).thenReturn(3);
+
+        // Act
+        stream.onProductChanged(ProductChangedEvent.saved(new Product(7, "Lipstick", Category.LIPS, "lipstick", "red", 25.0, 4)));
+        stream.onStockChanged(new ProductStockChangedEvent(7, -1));
+        stream.onProductChanged(ProductChangedEvent.deleted(7));
+
+        // Assert
+        String body = await(result, "\"deleted\":true");
+        assertTrue(body.contains("id:1\nevent:change\ndata:{\"productId\":7,\"price\":25.0,\"availableQuantity\":4}"), body);
+        assertTrue(body.contains("id:2\nevent:change\ndata:{\"productId\":7,\"availableQuantity\":3}"), body);
+        assertTrue(body.contains("id:3\nevent:change\ndata:{\"productId\":7,\"deleted\":true}"), body);
+        assertEquals(1, stream.subscriberCount());
+    }
+
+    @Test
+    public void testOnStockChanged_NothingIsReadWithoutSubscribers() {
+        // Act
+        stream.onStockChanged(new ProductStockChangedEvent(7, -1));
+
+        // Assert
+        verifyNoInteractions(stockLevels);
+    }
+
+    @Test
+    public void testSubscribe_ReconnectingClientIsToldToResync() throws Exception {
+        // Act
+        MvcResult result = subscribe("12");
+
+        // Assert
+        assertTrue(await(result, "event:resync").contains("event:resync"));
+        verify(customerService).subscribeToProductChanges(true);
+    }
+
+    @Test
+    public void testOnStockFeedApplied_EverySubscriberResyncs() throws Exception {
+        // Arrange
+        MvcResult first = subscribe(null);
+        MvcResult second = subscribe(null);
+
+        // Act
+        stream.onStockFeedApplied(new StockFeedAppliedEvent(500));
+
+        // Assert
+        assertTrue(await(first, "event:resync").contains("event:resync"));
+        assertTrue(await(second, "event:resync").contains("event:resync"));
+    }
+
+    private MvcResult subscribe(String lastEventId) throws Exception {
+        return lastEventId == null
+                ? mockMvc.perform(get("/products/changes")).andExpect(request().asyncStarted()).andReturn()
+                : mockMvc.perform(get("/products/changes").header("Last-Event-ID", lastEventId))
+                        .andExpect(request().asyncStarted()).andReturn();
+    }
+
+    /**
+     * Events are written by the sender threads, so the response is read until the expected text shows up
+     */
+    private static String await(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        return body;
+    }
+}
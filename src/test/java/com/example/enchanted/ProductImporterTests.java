@@ -0,0 +1,204 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Pojo.ProductImportResult;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.ProductImporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ProductImporterTests {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductImporter importer;
+    private final List<List<Product>> batches = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        importer = new ProductImporter(productRepository, new ObjectMapper(), 2, 10);
+        doAnswer(invocation -> batches.add(new ArrayList<>(invocation.getArgument(0)))).when(productRepository).insertProducts(anyList());
+    }
+
+    @Test
+    public void testImportCsv_WritesInBatches() throws Exception {
+        // Arrange
+        String csv = "name,category,type,color,price,availableQuantity\n"
+                + "Velvet Lip,lips,lipstick,red,12.5,100\n"
+                + "\"Glow, Highlighter\",FACE,highlighter,gold,20,5\n"
+                + "\"Say \"\"Wow\"\" Mascara\",EYES,mascara,black,9.99,0\n";
+
+        // Act
+        ProductImportResult result = importer.importCsv(stream(csv));
+
+        // Assert
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        Product first = batches.get(0).get(0);
+        assertEquals("Velvet Lip", first.getName());
+        assertEquals(Category.LIPS, first.getCategory());
+        assertEquals(12.5, first.getPrice());
+        assertEquals(100, first.getAvailableQuantity());
+        assertNull(first.getId());
+        assertEquals("Glow, Highlighter", batches.get(0).get(1).getName());
+        assertEquals("Say \"Wow\" Mascara", batches.get(1).get(0).getName());
+    }
+
+    @Test
+    public void testImportCsv_ColumnsInAnyOrder() throws Exception {
+        // Arrange
+        String csv = "price,availableQuantity,name,sku,color,type,category\n"
+                + "30,7,Brush Set,BR-1,black,brush,TOOLS\n";
+
+        // Act
+        ProductImportResult result = importer.importCsv(stream(csv));
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals("Brush Set", batches.get(0).get(0).getName());
+        assertEquals(Category.TOOLS, batches.get(0).get(0).getCategory());
+    }
+
+    @Test
+    public void testImportCsv_ReportsInvalidRowsAndKeepsTheRest() throws Exception {
+        // Arrange
+        String csv = "name,category,type,color,price,availableQuantity\n"
+                + "Velvet Lip,LIPS,lipstick,red,12.5,100\n"
+                + ",LIPS,lipstick,red,12.5,100\n"
+                + "Blush,CHEEKS,blush,pink,10,3\n"
+                + "Liner,EYES,liner,black,-1,3\n"
+                + "Primer,FACE,primer,clear,15,-2\n"
+                + "Gloss,LIPS,gloss\n"
+                + "Balm,LIPS,balm,clear,abc,1\n";
+
+        // Act
+        ProductImportResult result = importer.importCsv(stream(csv));
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals(6, result.getRejected());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals("Product name cannot be empty.", result.getErrors().get(0).getMessage());
+        assertEquals("Unknown category CHEEKS.", result.getErrors().get(1).getMessage());
+        assertEquals("Price must be greater than zero.", result.getErrors().get(2).getMessage());
+        assertEquals("Available quantity cannot be negative.", result.getErrors().get(3).getMessage());
+        assertEquals("Expected at least 6 fields but found 3.", result.getErrors().get(4).getMessage());
+        assertEquals("Price must be a number.", result.getErrors().get(5).getMessage());
+    }
+
+    @Test
+    public void testImportCsv_NonFinitePricesAreRejected() throws Exception {
+        // Arrange
+        String csv = "name,category,type,color,price,availableQuantity\n"
+                + "Velvet Lip,LIPS,lipstick,red,NaN,100\n"
+                + "Glow,FACE,highlighter,gold,Infinity,5\n"
+                + "Blush,FACE,blush,pink,-Infinity,5\n";
+
+        // Act
+        ProductImportResult result = importer.importCsv(stream(csv));
+
+        // Assert
+        assertEquals(0, result.getImported());
+        assertEquals(3, result.getRejected());
+        result.getErrors().forEach(error -> assertEquals("Price must be a number.", error.getMessage()));
+        verify(productRepository, never()).insertProducts(anyList());
+    }
+
+    @Test
+    public void testImportCsv_MissingColumnThrowsException() {
+        // Arrange
+        String csv = "name,category,type,color,price\nVelvet Lip,LIPS,lipstick,red,12.5\n";
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> importer.importCsv(stream(csv)));
+        assertEquals("CSV header is missing the availableQuantity column.", exception.getMessage());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testImportCsv_ReportedErrorsAreCapped() throws Exception {
+        // Arrange
+        StringBuilder csv = new StringBuilder("name,category,type,color,price,availableQuantity\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append("Blush,CHEEKS,blush,pink,10,3\n");
+        }
+
+        // Act
+        ProductImportResult result = importer.importCsv(stream(csv.toString()));
+
+        // Assert
+        assertEquals(25, result.getRejected());
+        assertEquals(10, result.getErrors().size());
+    }
+
+    @Test
+    public void testImportNdjson_ParsesEveryLine() throws Exception {
+        // Arrange
+        String ndjson = "{\"name\":\"Velvet Lip\",\"category\":\"LIPS\",\"type\":\"lipstick\",\"color\":\"red\",\"price\":12.5,\"availableQuantity\":100}\n"
+                + "{\"name\":\"Broken\",\n"
+                + "\n"
+                + "{\"name\":\"Glow\",\"category\":\"FACE\",\"type\":\"highlighter\",\"color\":\"gold\",\"price\":20,\"availableQuantity\":5}\n";
+
+        // Act
+        ProductImportResult result = importer.importNdjson(stream(ndjson));
+
+        // Assert
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals("Malformed JSON.", result.getErrors().get(0).getMessage());
+        assertEquals(1, batches.size());
+        assertEquals("Glow", batches.get(0).get(1).getName());
+        assertEquals(20.0, batches.get(0).get(1).getPrice());
+    }
+
+    @Test
+    public void testImport_FailedBatchIsRetriedRowByRow() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            if (products.stream().anyMatch(product -> product.getName().length() > 10)) {
+                throw new DataIntegrityViolationException("Data too long for column 'name'");
+            }
+            batches.add(new ArrayList<>(products));
+            return null;
+        }).when(productRepository).insertProducts(anyList());
+        String csv = "name,category,type,color,price,availableQuantity\n"
+                + "Velvet Lip,LIPS,lipstick,red,12.5,100\n"
+                + "An Extremely Long Name,FACE,highlighter,gold,20,5\n";
+
+        // Act
+        ProductImportResult result = importer.importCsv(stream(csv));
+
+        // Assert
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertEquals("Could not be written: Data too long for column 'name'", result.getErrors().get(0).getMessage());
+        verify(productRepository, times(3)).insertProducts(anyList());
+        assertEquals("Velvet Lip", batches.get(0).get(0).getName());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.enchanted;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Customer;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.AdminService;
+import com.example.enchanted.Service.CustomerService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the cached finder queries against an embedded MariaDB with the in-memory catalog off, so every read goes
+ * through the query cache, and checks that writes made with plain SQL do not leave stale results or ETags behind,
+ * and that a cart is never priced from a product read before it was repriced.
+ */
+@SpringBootTest(properties = "catalog.in-memory.enabled=false")
+public class ProductQueryCacheTests {
+
+    private static DBConfigurationBuilder config;
+    private static DB database;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private AdminService adminService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void embeddedDatabase(DynamicPropertyRegistry registry) {
+        if (database == null) {
+            try {
+                config = DBConfigurationBuilder.newBuilder();
+                config.setPort(0);
+                database = DB.newEmbeddedDB(config.build());
+                database.start();
+                database.createDB("beautyproducts");
+            } catch (ManagedProcessException e) {
+                throw new IllegalStateException("Embedded MariaDB did not start", e);
+            }
+        }
+        registry.add("spring.datasource.url", () -> config.getURL("beautyproducts"));
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws ManagedProcessException {
+        if (database != null) {
+            database.stop();
+        }
+    }
+
+    @Test
+    public void testImportCsv_ImportedProductsShowUpInCachedFinders() throws Exception {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO product (id, name, category, type, color, price, available_quantity)" +
+                " VALUES (1000, 'Lipstick', 'LIPS', 'lipstick', 'red', 20, 5)");
+        assertEquals(1, productRepository.findProductByCategory(Category.LIPS).size());
+        String csv = "name,category,type,color,price,availableQuantity\nGloss,LIPS,gloss,pink,12.5,4\n";
+
+        // Act
+        adminService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        List<String> names = productRepository.findProductByCategory(Category.LIPS).stream()
+                .map(Product::getName).sorted().collect(Collectors.toList());
+        assertEquals(List.of("Gloss", "Lipstick"), names);
+    }
+
+    @Test
+    public void testCreateOrder_MovesCatalogVersionWithoutSnapshot() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO product (id, name, category, type, color, price, available_quantity)" +
+                " VALUES (1001, 'Mascara', 'EYES', 'mascara', 'black', 15, 5)");
+        Customer customer = customerService.registerCustomer("Ana", "ana@example.com", "0700000000", "Street 1");
+        String before = customerService.catalogVersion();
+
+        // Act
+        customerService.createOrder(customer.getCart().getId(), productRepository.findProductById(1001), 2);
+
+        // Assert
+        assertNotEquals(before, customerService.catalogVersion());
+        assertEquals(3, productRepository.findProductById(1001).getAvailableQuantity());
+    }
+
+    @Test
+    public void testCreateOrder_RepricedBetweenAddToCartAndOrder() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO product (id, name, category, type, color, price, available_quantity)" +
+                " VALUES (1002, 'Serum', 'FACE', 'serum', 'clear', 20, 5)");
+        Customer customer = customerService.registerCustomer("Ben", "ben@example.com", "0700000001", "Street 2");
+        Integer cartId = customer.getCart().getId();
+        Product seen = productRepository.findProductById(1002);
+        adminService.edit(1002, "Serum", 30.0, 5);
+
+        // Act
+        customerService.createOrder(cartId, seen, 2);
+
+        // Assert
+        assertEquals(60.0, customerService.totalPrice(cartId));
+        assertEquals(60.0, customerService.checkout(cartId).getTotal());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Service.CatalogSnapshot;
+import com.example.enchanted.Service.ProductCatalog;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductTextIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductTextIndexTests {
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private ProductTextIndex index;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(productCatalog.snapshot()).thenAnswer(invocation -> snapshot);
+        snapshot = CatalogSnapshot.of(Arrays.asList(
+                new Product(1, "Velvet Matte Lipstick", Category.LIPS, "lipstick", "red", 250.0, 10),
+                new Product(2, "Lip Liner", Category.LIPS, "lipLiner", "red", 150.0, 10),
+                new Product(3, "Volume Mascara", Category.EYES, "mascara", "black", 300.0, 10),
+                new Product(4, "Lipstick", Category.LIPS, "lipstick", "pink", 220.0, 10)));
+        index = new ProductTextIndex(productCatalog);
+    }
+
+    @Test
+    public void testSearch_RanksWholeWordsInNameFirst() {
+        // Act
+        List<Integer> result = ids(index.search("lipstick", 10));
+
+        // Assert
+        assertEquals(Arrays.asList(4, 1), result);
+    }
+
+    @Test
+    public void testSearch_MatchesInfixesAndShortPrefixes() {
+        // Act & Assert
+        assertEquals(Collections.singletonList(3), ids(index.search("scar", 10)));
+        assertEquals(Arrays.asList(4, 2, 1), ids(index.search("li", 10)));
+    }
+
+    @Test
+    public void testSearch_RequiresEveryWord() {
+        // Act & Assert
+        assertEquals(Collections.singletonList(1), ids(index.search("red lipstick", 10)));
+        assertTrue(index.search("blue lipstick", 10).isEmpty());
+    }
+
+    @Test
+    public void testOnProductChanged_UpdatesIncrementally() {
+        // Arrange
+        index.search("lipstick", 10);
+
+        Product renamed = new Product(3, "Lash Lipstick", Category.EYES, "mascara", "black", 300.0, 10);
+
+        // Act
+        snapshot = snapshot.with(renamed).without(4);
+        index.onProductChanged(ProductChangedEvent.saved(renamed));
+        index.onProductChanged(ProductChangedEvent.deleted(4));
+
+        // Assert
+        assertEquals(Arrays.asList(3, 1), ids(index.search("lipstick", 10)));
+        assertTrue(index.search("volume", 10).isEmpty());
+    }
+
+    @Test
+    public void testSearch_ReturnsProductsOfTheCurrentSnapshot() {
+        // Arrange
+        index.search("mascara", 10);
+
+        // Act
+        snapshot = snapshot.withStock(Collections.singletonList(
+                new Product(3, "Volume Mascara", Category.EYES, "mascara", "black", 300.0, 2)));
+        List<Product> result = index.search("mascara", 10);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(0).getAvailableQuantity());
+    }
+
+    @Test
+    public void testSearch_SkipsProductsMissingFromTheSnapshot() {
+        // Arrange
+        index.search("lipstick", 10);
+
+        // Act
+        snapshot = snapshot.without(1);
+
+        // Assert
+        assertEquals(Collections.singletonList(4), ids(index.search("lipstick", 10)));
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.enchanted;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.example.enchanted.Pojo.Category;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every {@code @Query} of the Repository package against an embedded MariaDB built by the migrations,
+ * and fails when the plan of a statement it issues reads a whole table. Sample arguments are chosen to be
+ * selective on the seeded data, so the optimizer has no reason to prefer a scan over an index.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+public class QueryPlanTests {
+
+    private static final String REPOSITORY_PACKAGE = "com.example.enchanted.Repository";
+
+    /**
+     * Queries that read every row on purpose, by simple name of the repository, method name and parameter count
+     */
+    private static final Set<String> FULL_READS = new HashSet<>(Arrays.asList(
+            "ProductRepository.findAll/0",
+            "ProductRepository.streamAll/0"));
+
+    private static final int PRODUCTS = 2000;
+    private static final int CARTS = 500;
+    private static final int ORDERS = 200;
+
+    private static final StatementRecorder RECORDER = new StatementRecorder();
+    private static DBConfigurationBuilder config;
+    private static DB database;
+    private static boolean seeded;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void embeddedDatabase(DynamicPropertyRegistry registry) {
+        if (database == null) {
+            try {
+                config = DBConfigurationBuilder.newBuilder();
+                config.setPort(0);
+                database = DB.newEmbeddedDB(config.build());
+                database.start();
+                database.createDB("beautyproducts");
+            } catch (ManagedProcessException e) {
+                throw new IllegalStateException("Embedded MariaDB did not start", e);
+            }
+        }
+        registry.add("spring.datasource.url", () -> config.getURL("beautyproducts"));
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws ManagedProcessException {
+        if (database != null) {
+            database.stop();
+        }
+    }
+
+    @BeforeEach
+    public void seed() {
+        if (seeded) {
+            return;
+        }
+        List<Object[]> products = new ArrayList<>();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            Category category = i % 50 == 0 ? Category.LIPS : Category.FACE;
+            products.add(new Object[]{i, "sample-" + i, category.name(), "sample-" + (i % 300), "sample-" + (i % 250),
+                    1 + (i % 400), i % 100 == 0 ? 0 : 50});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product (id, name, category, type, color, price, available_quantity)" +
+                " VALUES (?, ?, ?, ?, ?, ?, ?)", products);
+        List<Object[]> carts = new ArrayList<>();
+        List<Object[]> customers = new ArrayList<>();
+        List<Object[]> lines = new ArrayList<>();
+        for (int cart = 1; cart <= CARTS; cart++) {
+            carts.add(new Object[]{cart, 0.0});
+            customers.add(new Object[]{cart, "sample-" + cart, "sample-" + cart + "@example.com", cart});
+            for (int k = 0; k < 4; k++) {
+                lines.add(new Object[]{cart * 4 + k, cart, (cart * 7 + k * 13) % PRODUCTS + 1, 1 + k});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cart (id, total_price) VALUES (?, ?)", carts);
+        jdbcTemplate.batchUpdate("INSERT INTO customer (id, name, email, cart_id) VALUES (?, ?, ?, ?)", customers);
+        jdbcTemplate.batchUpdate("INSERT INTO product_orders (id, cart_id, product_id, amount) VALUES (?, ?, ?, ?)", lines);
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> orderLines = new ArrayList<>();
+        for (int order = 1; order <= ORDERS; order++) {
+            orders.add(new Object[]{order, order, 10.0});
+            for (int k = 0; k < 3; k++) {
+                orderLines.add(new Object[]{order, order * 3 + k, "sample", 10.0, 1});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customer_orders (id, cart_id, total, created_at) VALUES (?, ?, ?, NOW())", orders);
+        jdbcTemplate.batchUpdate("INSERT INTO order_lines (order_id, product_id, product_name, price, amount)" +
+                " VALUES (?, ?, ?, ?, ?)", orderLines);
+        jdbcTemplate.execute("ANALYZE TABLE product, cart, customer, product_orders, customer_orders, order_lines");
+        seeded = true;
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> testEveryQuery_UsesAnIndex() {
+        return repositories().stream()
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .filter(method -> method.isAnnotationPresent(Query.class))
+                        .filter(method -> !FULL_READS.contains(key(method)))
+                        .sorted(Comparator.comparing(QueryPlanTests::key))
+                        .map(method -> DynamicTest.dynamicTest(key(method), () -> assertUsesIndexes(repository, method))));
+    }
+
+    private void assertUsesIndexes(Class<?> repository, Method method) {
+        List<Statement> statements = run(applicationContext.getBean(repository), method);
+        assertFalse(statements.isEmpty(), "No statement was sent for " + key(method));
+        for (Statement statement : statements) {
+            List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + statement.sql, statement.args);
+            List<Object> scanned = plan.stream()
+                    .filter(row -> "ALL".equals(row.get("type")))
+                    .map(row -> row.get("table"))
+                    .collect(Collectors.toList());
+            assertTrue(scanned.isEmpty(), key(method) + " scans " + scanned + " in full: " + statement.sql + "\n" + plan);
+        }
+    }
+
+    /**
+     * Calls the query method with sample arguments in a transaction that is rolled back, and returns what it sent
+     */
+    private List<Statement> run(Object repository, Method method) {
+        Object[] args = Arrays.stream(method.getParameters()).map(QueryPlanTests::sample).toArray();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            RECORDER.start();
+            try {
+                Object result = method.invoke(repository, args);
+                if (result instanceof Stream) {
+                    try (Stream<?> stream = (Stream<?>) result) {
+                        stream.count();
+                    }
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(key(method) + " failed", e);
+            } finally {
+                RECORDER.stop();
+            }
+            return RECORDER.statements();
+        });
+    }
+
+    private static Object sample(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (Pageable.class.equals(type)) {
+            return PageRequest.of(0, 10);
+        }
+        if (Category.class.equals(type)) {
+            return Category.LIPS;
+        }
+        if (String.class.equals(type)) {
+            return "sample-7";
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return Arrays.asList(1, 2, 3);
+        }
+        if (double.class.equals(type) || Double.class.equals(type)) {
+            return 12.0;
+        }
+        if (int.class.equals(type) || Integer.class.equals(type)) {
+            return 7;
+        }
+        throw new IllegalArgumentException("No sample value for " + parameter);
+    }
+
+    private static String key(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() + "/" + method.getParameterCount();
+    }
+
+    private static List<Class<?>> repositories() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+                return definition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter((reader, factory) -> true);
+        List<Class<?>> repositories = new ArrayList<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents(REPOSITORY_PACKAGE)) {
+            try {
+                repositories.add(Class.forName(definition.getBeanClassName()));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        repositories.sort(Comparator.comparing(Class::getSimpleName));
+        return repositories;
+    }
+
+    @TestConfiguration
+    static class RecordingDataSource {
+
+        @Bean
+        static BeanPostProcessor recordStatements() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource) {
+                        return ProxyDataSourceBuilder.create((DataSource) bean).listener(RECORDER).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private static final class Statement {
+
+        private final String sql;
+        private final Object[] args;
+
+        Statement(String sql, Object[] args) {
+            this.sql = sql;
+            this.args = args;
+        }
+    }
+
+    /**
+     * Keeps the statements the test thread sends while recording; connection checks and other threads are left out
+     */
+    private static final class StatementRecorder implements QueryExecutionListener {
+
+        private final List<Statement> statements = new CopyOnWriteArrayList<>();
+        private volatile long threadId = -1;
+
+        void start() {
+            statements.clear();
+            threadId = Thread.currentThread().getId();
+        }
+
+        void stop() {
+            threadId = -1;
+        }
+
+        List<Statement> statements() {
+            return new ArrayList<>(statements);
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (execInfo.getThreadId() != threadId) {
+                return;
+            }
+            for (QueryInfo query : queryInfoList) {
+                String sql = query.getQuery().trim();
+                String verb = sql.length() < 6 ? sql : sql.substring(0, 6);
+                if (!verb.equalsIgnoreCase("select") && !verb.equalsIgnoreCase("update") && !verb.equalsIgnoreCase("delete")) {
+                    continue;
+                }
+                List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                        ? new ArrayList<>() : query.getParametersList().get(0);
+                Object[] args = new Object[parameters.size()];
+                for (ParameterSetOperation parameter : parameters) {
+                    Object[] call = parameter.getArgs();
+                    int index = (Integer) call[0];
+                    args[index - 1] = "setNull".equals(parameter.getMethod().getName()) ? null : call[1];
+                }
+                statements.add(new Statement(sql, args));
+            }
+        }
+    }
+}
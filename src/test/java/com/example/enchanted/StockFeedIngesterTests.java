@@ -0,0 +1,133 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.StockFeedResult;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.HotInventory;
+import com.example.enchanted.Service.StockFeedIngester;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StockFeedIngesterTests {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private HotInventory hotInventory;
+    @TempDir
+    Path feeds;
+
+    private StockFeedIngester ingester;
+    private final List<int[]> applied = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ingester = new StockFeedIngester(productRepository, hotInventory, feeds.toString(), 2, 10);
+        when(hotInventory.hotProductIds()).thenReturn(Collections.emptySet());
+        when(productRepository.setOnHandQuantities(any(), any(), anyInt())).thenAnswer(invocation -> {
+            int[] ids = invocation.getArgument(0);
+            int[] quantities = invocation.getArgument(1);
+            int count = invocation.getArgument(2);
+            int[] counts = new int[count];
+            for (int i = 0; i < count; i++) {
+                applied.add(new int[]{ids[i], quantities[i]});
+                counts[i] = ids[i] == 404 ? 0 : 1;
+            }
+            return counts;
+        });
+    }
+
+    @Test
+    public void testIngest_AppliesQuantitiesInBatches() throws Exception {
+        // Arrange
+        feed("stock.txt", "         1       120\n00000000020000000000 WAREHOUSE-B\r\n\n         3         7");
+
+        // Act
+        StockFeedResult result = ingester.ingest("stock.txt");
+
+        // Assert
+        assertEquals(3, result.getLines());
+        assertEquals(3, result.getUpdated());
+        assertEquals(0, result.getRejected());
+        verify(productRepository, times(2)).setOnHandQuantities(any(), any(), anyInt());
+        assertArrayEquals(new int[]{1, 120}, applied.get(0));
+        assertArrayEquals(new int[]{2, 0}, applied.get(1));
+        assertArrayEquals(new int[]{3, 7}, applied.get(2));
+    }
+
+    @Test
+    public void testIngest_ReportsMalformedAndUnknownLines() throws Exception {
+        // Arrange
+        feed("stock.txt", "         1        12\n"
+                + "short\n"
+                + "       abc        12\n"
+                + "         5       -12\n"
+                + "         0         4\n"
+                + "       404         9\n");
+
+        // Act
+        StockFeedResult result = ingester.ingest("stock.txt");
+
+        // Assert
+        assertEquals(6, result.getLines());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnknownProducts());
+        assertEquals(4, result.getRejected());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals("Expected at least 20 characters but found 5.", result.getErrors().get(0).getMessage());
+        assertEquals("Product ID is not a positive number.", result.getErrors().get(1).getMessage());
+        assertEquals("Available quantity is not a number.", result.getErrors().get(2).getMessage());
+        assertEquals(5, result.getErrors().get(3).getLine());
+    }
+
+    @Test
+    public void testIngest_SkipsHotProducts() throws Exception {
+        // Arrange
+        when(hotInventory.hotProductIds()).thenReturn(new HashSet<>(Arrays.asList(2, 9)));
+        feed("stock.txt", "         1        10\n         2        20\n");
+
+        // Act
+        StockFeedResult result = ingester.ingest("stock.txt");
+
+        // Assert
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getSkippedHotProducts());
+        assertEquals(1, applied.size());
+        assertArrayEquals(new int[]{1, 10}, applied.get(0));
+    }
+
+    @Test
+    public void testIngest_FileOutsideFeedDirectory() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ingester.ingest("../secrets.txt"));
+        assertEquals("Stock feed must be inside the feed directory.", exception.getMessage());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    public void testIngest_MissingFile() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ingester.ingest("missing.txt"));
+        assertEquals("Stock feed missing.txt not found.", exception.getMessage());
+    }
+
+    private void feed(String name, String content) throws Exception {
+        Files.write(feeds.resolve(name), content.getBytes(StandardCharsets.US_ASCII));
+    }
+}
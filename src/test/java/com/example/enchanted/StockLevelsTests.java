@@ -0,0 +1,121 @@
+package com.example.enchanted;
+
+import com.example.enchanted.Pojo.Category;
+import com.example.enchanted.Pojo.Product;
+import com.example.enchanted.Repository.ProductRepository;
+import com.example.enchanted.Service.HotInventory;
+import com.example.enchanted.Service.ProductChangedEvent;
+import com.example.enchanted.Service.ProductStockChangedEvent;
+import com.example.enchanted.Service.StockFeedAppliedEvent;
+import com.example.enchanted.Service.StockLevels;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StockLevelsTests {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private HotInventory hotInventory;
+
+    private StockLevels stockLevels;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stockLevels = new StockLevels(productRepository, hotInventory, 5, "EYES=10");
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                product(1, Category.LIPS, 0),
+                product(2, Category.LIPS, 5),
+                product(3, Category.LIPS, 6),
+                product(4, Category.EYES, 8),
+                product(5, Category.FACE, 50)));
+        stockLevels.warmUp();
+    }
+
+    @Test
+    public void testWarmUp_SortsProductsByStock() {
+        // Assert
+        assertEquals(Collections.singletonList(1), stockLevels.outOfStock());
+        assertEquals(Arrays.asList(2, 4), stockLevels.lowStock(null));
+        assertEquals(Collections.singletonList(4), stockLevels.lowStock(Category.EYES));
+        assertTrue(stockLevels.lowStock(Category.TOOLS).isEmpty());
+        assertEquals(10, stockLevels.threshold(Category.EYES));
+        assertEquals(5, stockLevels.threshold(Category.FACE));
+    }
+
+    @Test
+    public void testReload_CountsUnitsLeasedToHotInventory() {
+        // Arrange
+        when(hotInventory.leased(1)).thenReturn(100);
+
+        // Act
+        stockLevels.reload();
+
+        // Assert
+        assertTrue(stockLevels.outOfStock().isEmpty());
+        assertEquals(100, stockLevels.quantity(1));
+    }
+
+    @Test
+    public void testOnStockChanged_OrdersMoveProductsBetweenSets() {
+        // Act
+        stockLevels.onStockChanged(new ProductStockChangedEvent(3, -1));
+        stockLevels.onStockChanged(new ProductStockChangedEvent(2, -5));
+        stockLevels.onStockChanged(new ProductStockChangedEvent(1, 20));
+        stockLevels.onStockChanged(new ProductStockChangedEvent(99, -1));
+
+        // Assert
+        assertEquals(Collections.singletonList(2), stockLevels.outOfStock());
+        assertEquals(Arrays.asList(3, 4), stockLevels.lowStock(null));
+        assertEquals(5, stockLevels.quantity(3));
+        assertNull(stockLevels.quantity(99));
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testOnProductChanged_AdminEditsAndDeletesAreApplied() {
+        // Act
+        stockLevels.onProductChanged(ProductChangedEvent.saved(product(1, Category.LIPS, 3)));
+        stockLevels.onProductChanged(ProductChangedEvent.saved(product(6, Category.TOOLS, 0)));
+        stockLevels.onProductChanged(ProductChangedEvent.deleted(4));
+
+        // Assert
+        assertEquals(Collections.singletonList(6), stockLevels.outOfStock());
+        assertEquals(Arrays.asList(1, 2), stockLevels.lowStock(Category.LIPS));
+        assertTrue(stockLevels.lowStock(Category.EYES).isEmpty());
+    }
+
+    @Test
+    public void testOnStockFeedApplied_LoadsAgain() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(Collections.singletonList(product(5, Category.FACE, 0)));
+
+        // Act
+        stockLevels.onStockFeedApplied(new StockFeedAppliedEvent(1));
+
+        // Assert
+        assertEquals(Collections.singletonList(5), stockLevels.outOfStock());
+        assertTrue(stockLevels.lowStock(null).isEmpty());
+    }
+
+    @Test
+    public void testConstructor_MalformedThresholdThrowsException() {
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> new StockLevels(productRepository, hotInventory, 5, "EYES:10"));
+        assertEquals("Low stock threshold must look like CATEGORY=quantity but was EYES:10.", exception.getMessage());
+    }
+
+    private static Product product(Integer id, Category category, Integer availableQuantity) {
+        return new Product(id, "Product " + id, category, "type", "color", 10.0, availableQuantity);
+    }
+}